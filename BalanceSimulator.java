@@ -0,0 +1,193 @@
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// plays scripted fights of every player class against every monster in the catalog at every level
+// and tabulates how they went. each (monster, level, class) cell has its own random stream derived
+// from the seed, so the table is the same whatever the thread count
+public class BalanceSimulator {
+    static final String[] CLASSES = {"Warrior", "Archer", "Mage"};
+    // a fight still going after this many rounds is stopped and counted as a draw
+    static final int ROUND_LIMIT = 100;
+
+    private final MonsterTemplate[] monsters;
+    private final List<Drop> noDrops = Collections.emptyList();
+
+    public BalanceSimulator(BlueprintCatalog catalog) {
+        this.monsters = catalog.monsters().toArray(new MonsterTemplate[0]);
+    }
+
+    public int getMonsterCount() {
+        return monsters.length;
+    }
+
+    // results for levels 1..levels, battles fights per cell
+    public Table simulate(int levels, int battles, long seed, CombatEngine.Style style, ForkJoinPool pool) {
+        Table table = new Table(monsters, levels, battles);
+        if (table.cells > 0 && battles > 0) pool.invoke(new CellTask(table, seed, style, 0, table.cells));
+        return table;
+    }
+
+    public static class Table {
+        private final MonsterTemplate[] monsters;
+        private final int levels;
+        private final int battles;
+        private final int cells;
+        private final int[] wins;
+        private final int[] losses;
+        private final long[] winRounds;
+        private final long[] lossRounds;
+
+        Table(MonsterTemplate[] monsters, int levels, int battles) {
+            this.monsters = monsters;
+            this.levels = levels;
+            this.battles = battles;
+            this.cells = monsters.length * levels * CLASSES.length;
+            this.wins = new int[cells];
+            this.losses = new int[cells];
+            this.winRounds = new long[cells];
+            this.lossRounds = new long[cells];
+        }
+
+        public long getBattleCount() {
+            return (long) cells * battles;
+        }
+
+        // one row per monster, level and class. rounds_to_win is how long the player takes to kill
+        // the monster, rounds_to_lose how long the monster takes to kill the player
+        public void writeCsv(PrintWriter out) {
+            out.println("monster,level,class,battles,win_rate,loss_rate,draw_rate,rounds_to_win,rounds_to_lose");
+            for (int cell = 0; cell < cells; cell++) {
+                int draws = battles - wins[cell] - losses[cell];
+                out.println(csv(monsters[monsterOf(cell)].getName()) + "," + levelOf(cell) + "," + CLASSES[classOf(cell)] + ","
+                            + battles + "," + rate(wins[cell]) + "," + rate(losses[cell]) + "," + rate(draws) + ","
+                            + average(winRounds[cell], wins[cell]) + "," + average(lossRounds[cell], losses[cell]));
+            }
+            out.flush();
+        }
+
+        int monsterOf(int cell) { return cell / (levels * CLASSES.length); }
+        int levelOf(int cell) { return cell / CLASSES.length % levels + 1; }
+        int classOf(int cell) { return cell % CLASSES.length; }
+
+        private String rate(int count) {
+            return String.format("%.4f", (double) count / battles);
+        }
+
+        private static String average(long total, int count) {
+            return count == 0 ? "" : String.format("%.2f", (double) total / count);
+        }
+
+        private static String csv(String s) {
+            return s.indexOf(',') < 0 && s.indexOf('"') < 0 ? s : "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private class CellTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 8;
+
+        private final Table table;
+        private final long seed;
+        private final CombatEngine.Style style;
+        private final int from;
+        private final int to;
+
+        CellTask(Table table, long seed, CombatEngine.Style style, int from, int to) {
+            this.table = table;
+            this.seed = seed;
+            this.style = style;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                Fighter fighter = new Fighter();
+                for (int cell = from; cell < to; cell++) fighter.run(table, cell, seed, style);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CellTask(table, seed, style, from, mid), new CellTask(table, seed, style, mid, to));
+        }
+    }
+
+    // one worker's reusable combat state: an engine, one kitted-out player per class and an arena.
+    // the scripted policy for each class is also its action source, and the sink only counts rounds
+    private class Fighter implements CombatEngine.ActionSource, CombatEngine.Sink {
+        private final CombatEngine engine = new CombatEngine(this, this);
+        private final Player[] players = new Player[CLASSES.length];
+        private final Room arena = new Room("Arena", "", new Item[0], new Entity[0], new Room[0]);
+        private int playerClass;
+        private int rounds;
+
+        Fighter() {
+            engine.setRoundLimit(ROUND_LIMIT);
+            for (int c = 0; c < CLASSES.length; c++) players[c] = newPlayer(CLASSES[c]);
+        }
+
+        void run(Table table, int cell, long seed, CombatEngine.Style style) {
+            MonsterTemplate monster = monsters[table.monsterOf(cell)];
+            int level = table.levelOf(cell);
+            playerClass = table.classOf(cell);
+            Player player = players[playerClass];
+            SplittableRandom rand = new SplittableRandom(seed ^ (cell * 0x9E3779B97F4A7C15L));
+            for (int b = 0; b < table.battles; b++) {
+                player.setHealth(player.getMaxHealth());
+                rounds = 0;
+                CombatEngine.Outcome outcome = engine.fight(player, new Entity(monster, level, noDrops), arena, style, rand);
+                if (outcome == CombatEngine.Outcome.ENEMY_DEFEATED) {
+                    table.wins[cell]++;
+                    table.winRounds[cell] += rounds;
+                } else if (outcome == CombatEngine.Outcome.PLAYER_DEFEATED) {
+                    table.losses[cell]++;
+                    table.lossRounds[cell] += rounds;
+                }
+            }
+        }
+
+        // warriors close in and swing, archers keep their distance and shoot, mages just cast
+        @Override
+        public CombatEngine.Action nextAction(CombatEngine fight) {
+            int distance = fight.getDistance();
+            switch (playerClass) {
+                case 0: return distance > 1 ? CombatEngine.Action.CLOSER : CombatEngine.Action.MELEE;
+                case 1: return distance >= 2 ? CombatEngine.Action.RANGED : CombatEngine.Action.AWAY;
+                default: return CombatEngine.Action.MAGIC;
+            }
+        }
+
+        @Override
+        public Item chooseItem(CombatEngine fight) {
+            return null;
+        }
+
+        @Override
+        public void onEvent(CombatEngine fight, CombatEngine.Event event, int amount, int blocked, Item item) {
+            if (event == CombatEngine.Event.ROUND_STARTED) rounds++;
+        }
+    }
+
+    // a fresh character of the class with a no-bonus weapon for its attack style, so the class
+    // stats alone decide the damage
+    private static Player newPlayer(String pClass) {
+        Player player = new Player();
+        player.setpClass(pClass);
+        player.applypClassFX(pClass);
+        Item weapon;
+        if (pClass.equals("Warrior")) {
+            weapon = new Item("Training Sword", "", false, false, true, false, 0, 0, 0, "weapon", 0, 0);
+        } else if (pClass.equals("Archer")) {
+            weapon = new Item("Training Bow", "", false, true, false, false, 0, 0, 0, "weapon", 0, 0);
+        } else {
+            weapon = new Item("Training Wand", "", false, false, false, true, 0, 0, 0, "weapon", 0, 0);
+        }
+        player.addItem(weapon);
+        player.equipItem(weapon);
+        return player;
+    }
+}
@@ -0,0 +1,849 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// the measurement and self-check modes run from the command line (java Main <mode> ...), kept
+// apart from the game
+public class Benchmarks {
+
+    // runs the mode named by args[0]; false if it isn't one, so the game starts instead
+    static boolean run(String[] args) throws Exception {
+        switch (args[0]) {
+            case "compile": {
+                String jsonFile = args.length > 1 ? args[1] : Main.BLUEPRINT_FILE;
+                String snapshotFile = args.length > 2 ? args[2] : BlueprintSnapshot.snapshotPathFor(jsonFile);
+                compileBlueprints(jsonFile, snapshotFile);
+                return true;
+            }
+            case "batch": {
+                int seedCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+                int levelsPerSeed = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+                benchmarkBatch(args.length > 3 ? args[3] : Main.BLUEPRINT_FILE, seedCount, levelsPerSeed);
+                return true;
+            }
+            case "rooms": {
+                int levels = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+                benchmarkLevelSize(args.length > 2 ? args[2] : Main.BLUEPRINT_FILE, levels);
+                return true;
+            }
+            case "events": {
+                benchmarkEvents(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+                return true;
+            }
+            case "equip": {
+                benchmarkEquip(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+                return true;
+            }
+            case "drops": {
+                benchmarkDrops(args.length > 1 ? Integer.parseInt(args[1]) : 10_000);
+                return true;
+            }
+            case "combat": {
+                benchmarkCombat(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+                return true;
+            }
+            case "loot": {
+                benchmarkLoot(args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000);
+                return true;
+            }
+            case "frames": {
+                benchmarkFrames(args.length > 1 ? Integer.parseInt(args[1]) : 100_000);
+                return true;
+            }
+            case "redraw": {
+                measureRedraw(args.length > 2 ? args[2] : Main.BLUEPRINT_FILE, args.length > 1 ? Integer.parseInt(args[1]) : 1_000);
+                return true;
+            }
+            case "minimap": {
+                benchmarkMiniMap(args.length > 1 ? Integer.parseInt(args[1]) : 2_000, args.length > 2 ? Integer.parseInt(args[2]) : 200);
+                return true;
+            }
+            case "balance": {
+                int battles = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+                int levels = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+                simulateBalance(args.length > 4 ? args[4] : Main.BLUEPRINT_FILE, battles, levels, args.length > 3 ? args[3] : "balance.csv");
+                return true;
+            }
+            case "templates": {
+                benchmarkTemplates(args.length > 2 ? args[2] : Main.BLUEPRINT_FILE, args.length > 1 ? Integer.parseInt(args[1]) : 2_000);
+                return true;
+            }
+            case "repro": {
+                checkReproducible(args.length > 1 ? args[1] : Main.BLUEPRINT_FILE, args.length > 2 ? Integer.parseInt(args[2]) : 50);
+                return true;
+            }
+            case "counters": {
+                checkHostileCounters(args.length > 1 ? args[1] : Main.BLUEPRINT_FILE, args.length > 2 ? Integer.parseInt(args[2]) : 300);
+                return true;
+            }
+            case "stats": {
+                checkCachedStats(args.length > 1 ? Integer.parseInt(args[1]) : 500);
+                return true;
+            }
+            case "autoequip": {
+                checkAutoEquip(args.length > 1 ? Integer.parseInt(args[1]) : 200);
+                return true;
+            }
+            case "reload": {
+                checkReload(args.length > 1 ? args[1] : Main.BLUEPRINT_FILE);
+                return true;
+            }
+            case "boss": {
+                checkBossRoll(args.length > 1 ? args[1] : Main.BLUEPRINT_FILE, args.length > 2 ? Integer.parseInt(args[2]) : 200);
+                return true;
+            }
+            case "snapshot": {
+                checkDamagedSnapshots(args.length > 1 ? args[1] : Main.BLUEPRINT_FILE);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    // compiles the blueprint json into a binary snapshot and times both startup paths
+    private static void compileBlueprints(String jsonFile, String snapshotFile) throws IOException {
+        long start = System.nanoTime();
+        RandomLevelGenerator fromJson = new RandomLevelGenerator(jsonFile);
+        long jsonNanos = System.nanoTime() - start;
+
+        BlueprintSnapshot.compile(fromJson.getCatalog(), BlueprintSnapshot.checksum(jsonFile), snapshotFile);
+        System.out.println("Wrote snapshot: " + snapshotFile);
+
+        start = System.nanoTime();
+        BlueprintCatalog fromSnapshot = BlueprintSnapshot.load(snapshotFile, jsonFile);
+        long snapshotNanos = System.nanoTime() - start;
+        if (fromSnapshot == null) {
+            System.out.println("Snapshot could not be read back.");
+            return;
+        }
+        System.out.println("Startup (json):     " + jsonNanos / 1_000_000.0 + " ms");
+        System.out.println("Startup (snapshot): " + snapshotNanos / 1_000_000.0 + " ms");
+    }
+
+    // keeps a batch of levels alive and reports the heap they take after a gc, first as generated
+    // (items and monsters pointing at shared templates) and then with every item and monster swapped
+    // for a copy that carries its own template and drop list, the way each instance used to
+    private static void benchmarkTemplates(String jsonFile, int levels) throws IOException {
+        RandomLevelGenerator generator = RandomLevelGenerator.open(jsonFile);
+        generator.setDebug(false);
+        Main.LevelData[] kept = new Main.LevelData[levels];
+        long base = usedHeapAfterGc();
+        long instances = 0;
+        for (int i = 0; i < levels; i++) {
+            kept[i] = generator.generateLevel(i, 1 + i % 20);
+            for (Room room : kept[i].rooms) instances += room.getItems().length + room.getCharacters().length;
+        }
+        long shared = usedHeapAfterGc() - base;
+        for (Main.LevelData data : kept) {
+            for (Room room : data.rooms) {
+                Item[] items = room.getItems().clone();
+                for (int i = 0; i < items.length; i++) items[i] = copyOf(items[i]);
+                room.setItems(items);
+                Entity[] characters = room.getCharacters().clone();
+                for (int i = 0; i < characters.length; i++) characters[i] = copyOf(characters[i]);
+                room.setCharacters(characters);
+            }
+        }
+        long copied = usedHeapAfterGc() - base;
+        System.out.println(levels + " levels, " + instances + " items and monsters:");
+        System.out.println("  shared templates: " + shared / levels + " bytes/level");
+        System.out.println("  per-instance copies: " + copied / levels + " bytes/level ("
+                           + String.format("%.1fx", (double) copied / shared) + ")");
+        java.lang.ref.Reference.reachabilityFence(kept);
+    }
+
+    private static Item copyOf(Item item) {
+        return new Item(item.getName(), item.getDescription(), item.isUsable(), item.isRanged(), item.isMelee(), item.isMagic(),
+                        item.getHealthFX(), item.getAttackFX(), item.getStealthFX(), item.getType(), item.getDefenseFX(),
+                        item.getMagicFX(), item.getRangedFX(), item.getEnduranceFX());
+    }
+
+    private static Entity copyOf(Entity e) {
+        List<Drop> drops = new ArrayList<>();
+        for (Drop drop : e.getDrops()) drops.add(new Drop(copyOf(drop.getItem()), drop.getChance()));
+        return new Entity(e.getName(), e.getDesc(), e.isHostile(), e.isDefeated(), e.getHealth(), e.getAttack(), e.canMelee(),
+                          e.canRanged(), e.canMagic(), e.getRangeAttack(), e.getMagicAttack(), e.getInitiative(), e.isAutoAttack(), drops);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // generates a batch of levels with 1, 2, 4... threads up to the core count and reports throughput
+    private static void benchmarkBatch(String jsonFile, int seedCount, int levelsPerSeed) throws IOException {
+        RandomLevelGenerator generator = RandomLevelGenerator.open(jsonFile);
+        java.util.concurrent.atomic.LongAdder rooms = new java.util.concurrent.atomic.LongAdder();
+        RandomLevelGenerator.LevelConsumer consumer = (seed, lvl, data) -> rooms.add(data.startingRoom.getExits().length);
+        // warm up so the first pool size isn't charged for class loading and jit
+        generator.generateBatch(0, Math.min(seedCount, 200), 1, levelsPerSeed, java.util.concurrent.ForkJoinPool.commonPool(), consumer);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads = threads < cores && threads * 2 > cores ? cores : threads * 2) {
+            java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+            long start = System.nanoTime();
+            generator.generateBatch(1, seedCount, 1, levelsPerSeed, pool, consumer);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            long levels = (long) seedCount * levelsPerSeed;
+            System.out.println(threads + " thread(s): " + levels + " levels in " + String.format("%.2f", seconds) + " s ("
+                               + String.format("%.0f", levels / seconds) + " levels/s)");
+            if (threads == cores) break;
+        }
+    }
+
+    // times level assembly on a synthetic theme built by repeating the first theme's rooms
+    private static void benchmarkLevelSize(String jsonFile, int levels) throws IOException {
+        BlueprintCatalog catalog = RandomLevelGenerator.open(jsonFile).getCatalog();
+        BlueprintCatalog.Theme source = catalog.getTheme(0);
+        for (int size : new int[] {10, 1_000, 100_000}) {
+            BlueprintCatalog.RoomBlueprint[] rooms = new BlueprintCatalog.RoomBlueprint[size];
+            for (int i = 0; i < size; i++) rooms[i] = source.rooms[i % source.rooms.length];
+            BlueprintCatalog.Theme theme = new BlueprintCatalog.Theme(source.name, rooms);
+            RandomLevelGenerator generator = new RandomLevelGenerator(catalog.withThemes(new BlueprintCatalog.Theme[] {theme}));
+            generator.setDebug(false);
+            generator.setLevelSize(size, size);
+
+            int runs = Math.max(1, (int) Math.min(levels, 1_000_000L / size));
+            for (int i = 0; i < runs; i++) generator.generateLevel(i, 1);
+            long start = System.nanoTime();
+            for (int i = 0; i < runs; i++) generator.generateLevel(i, 1);
+            double millis = (System.nanoTime() - start) / 1e6 / runs;
+            System.out.println(size + " rooms: " + String.format("%.3f", millis) + " ms/level (" + runs + " levels)");
+        }
+    }
+
+    // measures publish cost and allocation on a bus with a few listeners, as a turn would see it
+    private static void benchmarkEvents(int publishes) {
+        GameEvents bus = new GameEvents();
+        Main.SessionStats stats = new Main.SessionStats();
+        for (int i = 0; i < 4; i++) bus.subscribeAll(stats);
+        Room room = new Room("Bench", "", new Item[0], new Entity[0], new Room[0]);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < publishes; i++) bus.roomEntered(room);
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < publishes; i++) bus.roomEntered(room);
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        System.out.println(publishes + " publishes to 4 listeners: " + String.format("%.1f", (double) nanos / publishes)
+                           + " ns each, " + bytes + " bytes allocated");
+    }
+
+    // equips and unequips a rotating set of items, reading the attack totals after each change like a combat round would
+    private static void benchmarkEquip(int rounds) {
+        Player player = new Player();
+        String[] types = {"weapon", "ring", "cloak", "boots", "amulet", "book", "ring", "book"};
+        Item[] items = new Item[types.length];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item("Gear " + i, "", true, i % 3 == 1, i % 3 == 0, i % 3 == 2, i, i + 1, i % 2, types[i], i % 4, i % 3, i % 5, 1);
+            player.addItem(items[i]);
+        }
+        // summed and printed so the stat reads can't be optimized away
+        long sink = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                Item item = items[r % items.length];
+                player.equipItem(item);
+                sink += player.getMeleeAttack() + player.getRangedAttack() + player.getMagicAttack();
+                player.unequipItem(item.getName());
+            }
+            long nanos = System.nanoTime() - start;
+            if (pass == 1) {
+                System.out.println(rounds + " equip/unequip rounds: " + String.format("%.1f", (double) nanos / rounds) + " ns each (checksum " + sink + ")");
+            }
+        }
+    }
+
+    // a long fight in one room: monsters keep dropping loot, the player picks most of it up and
+    // the room is redrawn every turn
+    private static void benchmarkDrops(int drops) {
+        Room room = new Room("Arena", "", new Item[0], new Entity[0], new Room[0]);
+        ItemTemplate loot = new ItemTemplate("Coin", "", "misc", 0, 0, 0);
+        long visible = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < drops; i++) {
+            Item dropped = loot.newItem();
+            room.addItem(dropped);
+            if (i % 4 != 0) dropped.setPickedUp(true);
+            for (Item item : room.itemView()) {
+                if (!item.isPickedUp()) visible++;
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.println(drops + " drops: " + String.format("%.1f", millis) + " ms, " + room.itemView().size()
+                           + " items stored, " + visible + " item rows drawn");
+    }
+
+    // plays scripted fights through the combat engine with no console output: close in, then melee
+    private static void benchmarkCombat(int fights) {
+        CombatEngine.ActionSource bot = new CombatEngine.ActionSource() {
+            public CombatEngine.Action nextAction(CombatEngine fight) {
+                return fight.getDistance() > 1 ? CombatEngine.Action.CLOSER : CombatEngine.Action.MELEE;
+            }
+            public Item chooseItem(CombatEngine fight) { return null; }
+        };
+        long[] rounds = new long[1];
+        CombatEngine combat = new CombatEngine(bot, (fight, event, amount, blocked, item) -> {
+            if (event == CombatEngine.Event.ROUND_STARTED) rounds[0]++;
+        });
+        ItemTemplate loot = new ItemTemplate("Coin", "", "misc", 0, 0, 0);
+        SplittableRandom rand = new SplittableRandom(Main.sessionSeed);
+        int wins = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < fights; i++) {
+            Room room = new Room("Arena", "", new Item[0], new Entity[0], new Room[0]);
+            Player player = new Player();
+            Item sword = new Item("Sword", "", false, false, true, false, 0, 6, 0, "weapon", 0, 0);
+            player.addItem(sword);
+            player.equipItem(sword);
+            List<Drop> drops = new ArrayList<>();
+            drops.add(new Drop(loot, 0.5));
+            Entity goblin = new Entity("Goblin", "", true, false, 40, 4, true, false, false, 0, 0, i % 3, false, drops);
+            if (combat.fight(player, goblin, room, CombatEngine.Style.ENGAGE, rand.split()) == CombatEngine.Outcome.ENEMY_DEFEATED) wins++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(fights + " fights, " + wins + " won, " + rounds[0] + " rounds: "
+                           + String.format("%.0f", rounds[0] / seconds) + " rounds/s");
+    }
+
+    // win rates of every class against every monster at every level, written as csv
+    private static void simulateBalance(String jsonFile, int battles, int levels, String csvFile) throws IOException {
+        BalanceSimulator simulator = new BalanceSimulator(BlueprintCatalog.open(jsonFile));
+        long start = System.nanoTime();
+        BalanceSimulator.Table table = simulator.simulate(levels, battles, Main.sessionSeed, CombatEngine.Style.ENGAGE, java.util.concurrent.ForkJoinPool.commonPool());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        try (java.io.PrintWriter out = new java.io.PrintWriter(java.nio.file.Files.newBufferedWriter(java.nio.file.Paths.get(csvFile)))) {
+            table.writeCsv(out);
+        }
+        System.out.println(simulator.getMonsterCount() + " monsters x " + levels + " levels x " + BalanceSimulator.CLASSES.length + " classes: "
+                           + table.getBattleCount() + " battles in " + String.format("%.2f", seconds) + " s ("
+                           + String.format("%.0f", table.getBattleCount() / seconds) + " battles/s), written to " + csvFile);
+    }
+
+    // rolls a table with one entry per rarity tier plus an empty slot: reports rolls per second and
+    // checks the observed counts against the weights with a chi-square test
+    private static void benchmarkLoot(int rolls) {
+        int tiers = LootTable.RARITIES.length;
+        ItemTemplate[] outcomes = new ItemTemplate[tiers + 1];
+        int[] weights = new int[tiers + 1];
+        for (int i = 0; i < tiers; i++) {
+            outcomes[i] = new ItemTemplate(LootTable.RARITIES[i] + " item", "", "misc", 0, 0, 0);
+            weights[i] = LootTable.RARITY_WEIGHTS[i];
+        }
+        weights[tiers] = 50;
+        LootTable table = new LootTable(outcomes, weights, 1);
+        java.util.Map<ItemTemplate, Integer> slot = new java.util.IdentityHashMap<>();
+        for (int i = 0; i < tiers; i++) slot.put(outcomes[i], i);
+
+        SplittableRandom rand = new SplittableRandom(Main.sessionSeed);
+        long[] counts = new long[outcomes.length];
+        // the timed loop only counts empty rolls so the tally lookups don't show up in the rate
+        long empty = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rolls; i++) {
+            if (table.sample(rand) == null) empty++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(rolls + " rolls: " + String.format("%.0f", rolls / seconds) + " rolls/s (" + empty + " empty)");
+
+        for (int i = 0; i < rolls; i++) {
+            ItemTemplate rolled = table.sample(rand);
+            counts[rolled == null ? tiers : slot.get(rolled)]++;
+        }
+
+        long total = 0;
+        for (int w : weights) total += w;
+        double chiSquare = 0;
+        for (int i = 0; i < outcomes.length; i++) {
+            double expected = (double) rolls * weights[i] / total;
+            chiSquare += (counts[i] - expected) * (counts[i] - expected) / expected;
+            System.out.println("  " + (i < tiers ? LootTable.RARITIES[i] : "nothing") + ": expected " + String.format("%.0f", expected)
+                               + ", rolled " + counts[i]);
+        }
+        // 20.52 is the 99.9% critical value for 5 degrees of freedom
+        System.out.println("chi-square " + String.format("%.2f", chiSquare) + (chiSquare < 20.52 ? " (ok)" : " (FAILED)"));
+    }
+
+    // renders a busy room, the minimap and the inventory to /dev/null, once as single-write frames and
+    // once replaying the same lines through an autoflushing PrintStream the way println did
+    private static void benchmarkFrames(int frames) throws IOException {
+        Room[] neighbours = new Room[4];
+        for (int i = 0; i < neighbours.length; i++) neighbours[i] = new Room("Side Room " + i, "", new Item[0], new Entity[0], new Room[0]);
+        Item[] items = new Item[8];
+        for (int i = 0; i < items.length; i++) items[i] = new Item("Trinket " + i, "A small trinket.", false, false, 0, i, 0, "misc");
+        Entity[] monsters = new Entity[4];
+        for (int i = 0; i < monsters.length; i++) {
+            monsters[i] = new Entity("Goblin " + i, "A sneaky green goblin.", true, false, 12, 3, true, false, false, 0, 0, 0, false, new ArrayList<>());
+        }
+        Room room = new Room("Guard Post", "A post for dungeon guards.", items, monsters, neighbours);
+        MiniMap visited = new MiniMap();
+        for (Room n : neighbours) visited.visit(n);
+        visited.visit(room);
+        Player player = new Player();
+        for (int i = 0; i < 12; i++) player.addItem(new Item("Gear " + i, "", false, false, i % 2 == 0, false, 0, i, 0, "weapon", i % 3, 0));
+        Main.LevelRequirement requirement = new Main.DefeatAllHostilesRequirement();
+        List<Item> inventory = new ArrayList<>(player.getInventory());
+        List<Item> equipped = player.getEquippedFlat();
+
+        // one frame's text, captured to replay line by line
+        java.io.ByteArrayOutputStream captured = new java.io.ByteArrayOutputStream();
+        FrameRenderer capture = new FrameRenderer(java.nio.channels.Channels.newChannel(captured), java.nio.charset.Charset.defaultCharset());
+        Main.renderRoom(capture, requirement, room, player);
+        Main.renderMiniMap(capture, visited, room, 0);
+        Main.renderInventory(capture, player, inventory, equipped);
+        capture.flush();
+        String[] lines = captured.toString().split("\n", -1);
+
+        try (java.nio.channels.FileChannel devNull = java.nio.channels.FileChannel.open(java.nio.file.Paths.get("/dev/null"), java.nio.file.StandardOpenOption.WRITE);
+             java.io.PrintStream lineByLine = new java.io.PrintStream(new java.io.FileOutputStream("/dev/null"), true)) {
+            FrameRenderer buffered = new FrameRenderer(devNull, java.nio.charset.Charset.defaultCharset());
+            for (int pass = 0; pass < 2; pass++) {
+                long start = System.nanoTime();
+                for (int f = 0; f < frames; f++) {
+                    Main.renderRoom(buffered, requirement, room, player);
+                    Main.renderMiniMap(buffered, visited, room, 0);
+                    Main.renderInventory(buffered, player, inventory, equipped);
+                    buffered.flush();
+                }
+                double bufferedSeconds = (System.nanoTime() - start) / 1e9;
+                start = System.nanoTime();
+                for (int f = 0; f < frames; f++) {
+                    for (int l = 0; l < lines.length - 1; l++) lineByLine.println(lines[l]);
+                }
+                double printlnSeconds = (System.nanoTime() - start) / 1e9;
+                if (pass == 1) {
+                    System.out.println(frames + " frames of " + captured.size() + " bytes (" + (lines.length - 1) + " lines): buffered "
+                                       + String.format("%.0f", frames / bufferedSeconds) + " frames/s, println "
+                                       + String.format("%.0f", frames / printlnSeconds) + " frames/s");
+                }
+            }
+        }
+    }
+
+    // plays the same scripted session twice, with the full and the compact display, and reports
+    // the bytes written per turn. each turn shows the room screen, then picks something up, takes
+    // a hit, does something that changes nothing on screen (like checking the inventory) or, one
+    // turn in four, moves on, then shows the minimap
+    private static void measureRedraw(String jsonFile, int turns) throws IOException {
+        RandomLevelGenerator generator = RandomLevelGenerator.open(jsonFile);
+        generator.setDebug(false);
+        try (java.nio.channels.FileChannel devNull = java.nio.channels.FileChannel.open(java.nio.file.Paths.get("/dev/null"), java.nio.file.StandardOpenOption.WRITE)) {
+            long fullBytes = 0;
+            for (boolean compact : new boolean[] {false, true}) {
+                Main.LevelData data = generator.generateLevel(Main.sessionSeed, 1);
+                FrameRenderer r = new FrameRenderer(devNull, java.nio.charset.Charset.defaultCharset());
+                r.setCompact(compact);
+                SplittableRandom script = new SplittableRandom(Main.sessionSeed);
+                Player player = new Player();
+                Room room = data.startingRoom;
+                MiniMap visited = new MiniMap();
+                visited.visit(room);
+                for (int t = 0; t < turns; t++) {
+                    Main.renderRoom(r, data.requirement, room, player);
+                    r.flush();
+                    int action = script.nextInt(8);
+                    Item visible = null;
+                    for (Item item : room.getItems()) {
+                        if (!item.isPickedUp()) {
+                            visible = item;
+                            break;
+                        }
+                    }
+                    if (action == 0 && visible != null && player.getInventory().size() < player.getInventoryCapacity()) {
+                        player.addItem(visible);
+                        visible.setPickedUp(true);
+                    } else if (action == 1) {
+                        player.absorbDamage(1);
+                        if (!player.isAlive()) player.setHealth(player.getMaxHealth());
+                    } else if (action >= 6 && room.getExits().length > 0) {
+                        Room next = room.getExits()[script.nextInt(room.getExits().length)];
+                        room.compact();
+                        next.materialize();
+                        room = next;
+                        visited.visit(room);
+                    }
+                    Main.renderMiniMap(r, visited, room, 0);
+                    r.flush();
+                }
+                if (!compact) fullBytes = r.getBytesWritten();
+                System.out.println((compact ? "compact" : "full   ") + ": " + r.getBytesWritten() + " bytes, "
+                                   + String.format("%.0f", (double) r.getBytesWritten() / turns) + " bytes/turn"
+                                   + (compact ? String.format(" (%.1fx less)", (double) fullBytes / r.getBytesWritten()) : ""));
+            }
+        }
+    }
+
+    // a long corridor of rooms with side branches, all visited: renders the minimap the old way
+    // (hash set order, exit strings rebuilt with +=), then cached, then as a 2-hop neighbourhood
+    private static void benchmarkMiniMap(int roomCount, int turns) {
+        Room[] rooms = new Room[roomCount];
+        for (int i = 0; i < roomCount; i++) rooms[i] = new Room("Hall " + i, "", new Item[0], new Entity[0], new Room[0]);
+        for (int i = 0; i < roomCount; i++) {
+            List<Room> exits = new ArrayList<>();
+            if (i > 0) exits.add(rooms[i - 1]);
+            if (i + 1 < roomCount) exits.add(rooms[i + 1]);
+            if (i + 7 < roomCount) exits.add(rooms[i + 7]);
+            rooms[i].setExits(exits.toArray(new Room[0]));
+        }
+        java.util.Set<Room> visitedSet = new java.util.HashSet<>(java.util.Arrays.asList(rooms));
+        MiniMap miniMap = new MiniMap();
+        for (Room room : rooms) miniMap.visit(room);
+        FrameRenderer r = new FrameRenderer(java.nio.channels.Channels.newChannel(java.io.OutputStream.nullOutputStream()), java.nio.charset.Charset.defaultCharset());
+
+        // the player stays put for a few turns between moves, like in play
+        long sink = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long start = System.nanoTime();
+            for (int t = 0; t < turns; t++) {
+                Room current = rooms[(t / 4) % roomCount];
+                StringBuilder frame = new StringBuilder();
+                for (Room room : visitedSet) {
+                    String marker = (room == current) ? "[You] " : "      ";
+                    String exits = "";
+                    for (Room ex : room.getExits()) exits += " -> " + ex.getName();
+                    frame.append(marker + room.getName() + exits).append('\n');
+                }
+                sink += frame.length();
+                r.text(frame.toString());
+                r.flush();
+            }
+            double legacy = (System.nanoTime() - start) / 1e6 / turns;
+            double[] views = new double[2];
+            for (int v = 0; v < 2; v++) {
+                start = System.nanoTime();
+                for (int t = 0; t < turns; t++) {
+                    Main.renderMiniMap(r, miniMap, rooms[(t / 4) % roomCount], v == 0 ? 0 : 2);
+                    r.flush();
+                }
+                views[v] = (System.nanoTime() - start) / 1e6 / turns;
+            }
+            if (pass == 1) {
+                System.out.println(roomCount + " visited rooms: rebuilt " + String.format("%.3f", legacy) + " ms/turn, cached "
+                                   + String.format("%.3f", views[0]) + " ms/turn, 2-hop view " + String.format("%.3f", views[1])
+                                   + " ms/turn (checksum " + sink + ")");
+            }
+        }
+    }
+
+    // breaks a copy of the blueprint file while a hot-reloader watches it, then generates a level
+    // from every theme: once right after the edit, before any reload, and once after the reload
+    // has rejected the file. both must still work from the catalog the game started with
+    private static void checkReload(String jsonFile) throws IOException {
+        java.nio.file.Path copy = java.nio.file.Files.createTempFile("blueprints", ".json");
+        try {
+            java.nio.file.Files.copy(java.nio.file.Paths.get(jsonFile), copy, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            RandomLevelGenerator generator = RandomLevelGenerator.open(copy.toString());
+            generator.setDebug(false);
+            int themes = generator.getCatalog().getThemeCount();
+            try (BlueprintReloader reloader = new BlueprintReloader(generator, copy.toString())) {
+                java.nio.file.Files.write(copy, "{\"themes\": [".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                boolean ok = generatesEveryTheme(generator, themes);
+                System.out.println("level after the edit, before reloading: " + (ok ? "ok" : "FAILED"));
+                BlueprintCatalog before = generator.getCatalog();
+                reloader.reload();
+                ok = generator.getCatalog() == before && generatesEveryTheme(generator, themes);
+                System.out.println("level after a failed reload: " + (ok ? "ok" : "FAILED"));
+            }
+        } finally {
+            java.nio.file.Files.deleteIfExists(copy);
+        }
+    }
+
+    // rolls win conditions until it has a boss level in each mode: a lazy level must leave every
+    // room but the start unbuilt, and every hostile, built then or later, must have twice the stats
+    // of the same monster in an unrolled copy of the level; both modes must pick the same boss
+    private static void checkBossRoll(String jsonFile, int levels) throws IOException {
+        RandomLevelGenerator generator = RandomLevelGenerator.open(jsonFile);
+        generator.setDebug(false);
+        int bossLevels = 0, failures = 0;
+        for (int i = 0; i < levels; i++) {
+            long seed = Main.sessionSeed + i;
+            int level = 1 + i % 7;
+            String[] bosses = new String[2];
+            for (boolean lazy : new boolean[] {false, true}) {
+                generator.setLazyRooms(lazy);
+                Main.LevelData data = generator.generateLevel(seed, level);
+                Main.LevelRequirement requirement = Main.randomWinCondition(data);
+                if (!(requirement instanceof Main.DefeatBossRequirement)) break;
+                String boss = ((Main.DefeatBossRequirement) requirement).getBossName();
+                boolean ok = true;
+                for (Room room : data.rooms) {
+                    if (lazy) ok &= room.isMaterialized() == (room == data.startingRoom);
+                }
+                Main.LevelData plain = generator.generateLevel(seed, level);
+                for (int r = 0; r < data.rooms.length; r++) {
+                    List<Entity> scaled = data.rooms[r].characterView();
+                    List<Entity> base = plain.rooms[r].characterView();
+                    ok &= scaled.size() == base.size();
+                    for (int e = 0; ok && e < scaled.size(); e++) {
+                        ok &= scaled.get(e).getHealth() == 2 * base.get(e).getHealth()
+                            && scaled.get(e).getAttack() == 2 * base.get(e).getAttack();
+                    }
+                }
+                bosses[lazy ? 1 : 0] = boss;
+                ok &= data.hostiles.aliveCount(boss) > 0;
+                if (lazy) {
+                    bossLevels++;
+                    ok &= bosses[0].equals(bosses[1]);
+                }
+                if (!ok) failures++;
+            }
+        }
+        System.out.println(bossLevels + " boss levels, " + failures + " wrong: " + (bossLevels > 0 && failures == 0 ? "ok" : "FAILED"));
+    }
+
+    // damages a compiled snapshot three ways (cut short, a flipped byte, and a theme pointing past
+    // the room records with the checksum recomputed to match) and checks that each one is refused
+    // and the generator falls back to the json for every theme
+    private static void checkDamagedSnapshots(String jsonFile) throws IOException {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("snapshot");
+        java.nio.file.Path json = dir.resolve("blueprints.json");
+        java.nio.file.Path snapshot = java.nio.file.Paths.get(BlueprintSnapshot.snapshotPathFor(json.toString()));
+        try {
+            java.nio.file.Files.copy(java.nio.file.Paths.get(jsonFile), json);
+            BlueprintCatalog catalog = new RandomLevelGenerator(json.toString()).getCatalog();
+            BlueprintSnapshot.compile(catalog, BlueprintSnapshot.checksum(json.toString()), snapshot.toString());
+            byte[] good = java.nio.file.Files.readAllBytes(snapshot);
+            System.out.println("intact snapshot: " + (BlueprintSnapshot.load(snapshot.toString(), json.toString()) != null ? "ok" : "FAILED"));
+
+            byte[] truncated = java.util.Arrays.copyOf(good, good.length - 7);
+            byte[] flipped = good.clone();
+            flipped[good.length / 2] ^= 0x10;
+            byte[] badRecord = good.clone();
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.wrap(badRecord);
+            int stringCount = buf.getInt(28);
+            int themesAt = BlueprintSnapshot.HEADER_BYTES + (stringCount + 1) * 4 + buf.getInt(BlueprintSnapshot.HEADER_BYTES + stringCount * 4);
+            buf.putInt(themesAt + 8, 1_000_000);
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            crc.update(badRecord, BlueprintSnapshot.HEADER_BYTES, badRecord.length - BlueprintSnapshot.HEADER_BYTES);
+            buf.putLong(20, crc.getValue());
+
+            String[] names = { "truncated", "flipped byte", "bad record" };
+            byte[][] damaged = { truncated, flipped, badRecord };
+            for (int d = 0; d < damaged.length; d++) {
+                java.nio.file.Files.write(snapshot, damaged[d]);
+                boolean ok = BlueprintSnapshot.load(snapshot.toString(), json.toString()) == null;
+                RandomLevelGenerator generator = RandomLevelGenerator.open(json.toString());
+                generator.setDebug(false);
+                ok &= generatesEveryTheme(generator, catalog.getThemeCount());
+                System.out.println(names[d] + " snapshot: " + (ok ? "ok" : "FAILED"));
+            }
+        } finally {
+            java.nio.file.Files.deleteIfExists(snapshot);
+            java.nio.file.Files.deleteIfExists(json);
+            java.nio.file.Files.deleteIfExists(dir);
+        }
+    }
+
+    private static boolean generatesEveryTheme(RandomLevelGenerator generator, int themes) {
+        java.util.Set<Integer> seen = new java.util.HashSet<>();
+        for (long seed = 0; seed < 10_000 && seen.size() < themes; seed++) {
+            try {
+                generator.generateLevel(seed, 1);
+                seen.add(RandomLevelGenerator.pickTheme(seed, 1, themes));
+            } catch (RuntimeException e) {
+                System.out.println("  " + e);
+                return false;
+            }
+        }
+        return seen.size() == themes;
+    }
+
+    // a seed must give the same levels every time: generates levels 1..levels serially, again in
+    // reverse on a thread pool, and again from a freshly opened generator, and compares everything
+    // the player could see plus the first values of the level's win condition and combat streams
+    private static void checkReproducible(String jsonFile, int levels) throws Exception {
+        long seed = Main.sessionSeed;
+        RandomLevelGenerator generator = RandomLevelGenerator.open(jsonFile);
+        generator.setDebug(false);
+        String[] serial = new String[levels];
+        for (int l = 1; l <= levels; l++) serial[l - 1] = describe(generator.generateLevel(seed, l));
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<java.util.concurrent.Future<String>> parallel = new ArrayList<>();
+        try {
+            for (int l = levels; l >= 1; l--) {
+                int level = l;
+                parallel.add(pool.submit(() -> describe(generator.generateLevel(seed, level))));
+            }
+            java.util.Collections.reverse(parallel);
+            RandomLevelGenerator reopened = RandomLevelGenerator.open(jsonFile);
+            reopened.setDebug(false);
+            int mismatches = 0;
+            for (int l = 1; l <= levels; l++) {
+                String again = describe(reopened.generateLevel(seed, l));
+                if (!serial[l - 1].equals(parallel.get(l - 1).get()) || !serial[l - 1].equals(again)) {
+                    System.out.println("  level " + l + " differs between runs");
+                    mismatches++;
+                }
+            }
+            boolean seedMatters = !serial[0].equals(describe(generator.generateLevel(seed + 1, 1)));
+            System.out.println("seed " + seed + ", " + levels + " levels: " + (mismatches == 0 ? "reproducible" : mismatches + " differ")
+                               + ", next seed " + (seedMatters ? "differs" : "is the SAME"));
+            System.out.println(mismatches == 0 && seedMatters ? "ok" : "FAILED");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // rooms breadth-first from the start with their items, monsters and exits
+    private static String describe(Main.LevelData data) {
+        StringBuilder sb = new StringBuilder();
+        java.util.ArrayDeque<Room> queue = new java.util.ArrayDeque<>();
+        java.util.Set<Room> seen = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+        queue.add(data.startingRoom);
+        seen.add(data.startingRoom);
+        while (!queue.isEmpty()) {
+            Room room = queue.poll();
+            sb.append(room.getName()).append('{');
+            for (Item item : room.getItems()) sb.append(item.getName()).append(',');
+            for (Entity e : room.getCharacters()) sb.append(e.getName()).append(':').append(e.getHealth()).append(',');
+            for (Room exit : room.getExits()) {
+                sb.append('>').append(exit.getName());
+                if (seen.add(exit)) queue.add(exit);
+            }
+            sb.append("}\n");
+        }
+        sb.append(data.winConditionRng.split().nextLong()).append(' ').append(data.combatRng.split().nextLong());
+        return sb.toString();
+    }
+
+    // the level's hostile counters must always agree with a scan of the rooms: defeats and revives
+    // random monsters one at a time on eager and lazy levels and compares after every change
+    private static void checkHostileCounters(String jsonFile, int levels) throws IOException {
+        RandomLevelGenerator generator = RandomLevelGenerator.open(jsonFile);
+        generator.setDebug(false);
+        SplittableRandom rand = new SplittableRandom(Main.sessionSeed);
+        int checks = 0, mismatches = 0;
+        for (boolean lazy : new boolean[] {false, true}) {
+            generator.setLazyRooms(lazy);
+            for (int i = 0; i < levels; i++) {
+                Main.LevelData data = generator.generateLevel(Main.sessionSeed + i, 1 + i % 7);
+                List<Entity> entities = new ArrayList<>();
+                for (Room room : data.rooms) entities.addAll(room.characterView());
+                for (int step = 0; step <= entities.size(); step++) {
+                    int remaining = 0;
+                    java.util.Map<String, Integer> byName = new java.util.HashMap<>();
+                    for (Entity e : entities) {
+                        if (e.isHostile() && !e.isDefeated()) {
+                            remaining++;
+                            byName.merge(e.getName().toLowerCase(java.util.Locale.ROOT), 1, Integer::sum);
+                        }
+                    }
+                    boolean same = remaining == data.hostiles.remainingHostiles();
+                    for (Entity e : entities) {
+                        same &= byName.getOrDefault(e.getName().toLowerCase(java.util.Locale.ROOT), 0) == data.hostiles.aliveCount(e.getName());
+                    }
+                    checks++;
+                    if (!same) mismatches++;
+                    if (step < entities.size()) {
+                        Entity e = entities.get(rand.nextInt(entities.size()));
+                        e.setDefeated(!e.isDefeated() || rand.nextBoolean());
+                    }
+                }
+            }
+        }
+        System.out.println(checks + " counter checks, " + mismatches + " disagreed with a scan: " + (mismatches == 0 ? "ok" : "FAILED"));
+    }
+
+    // the cached attack totals must match ones computed from scratch: after every random equip,
+    // unequip or base attack change, a new player of the same class is given the same equipment
+    // and base attack, and its freshly computed totals are compared with the cached ones
+    private static void checkCachedStats(int players) {
+        String[] classes = {"Warrior", "Archer", "Mage"};
+        String[] types = {"weapon", "ring", "cloak", "boots", "book", "misc"};
+        SplittableRandom rand = new SplittableRandom(Main.sessionSeed);
+        int checks = 0, mismatches = 0;
+        for (int p = 0; p < players; p++) {
+            String pClass = classes[rand.nextInt(classes.length)];
+            Player player = new Player();
+            player.applypClassFX(pClass);
+            Item[] pool = new Item[12];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = new Item("Gear " + i, "", true, rand.nextBoolean(), rand.nextBoolean(), rand.nextBoolean(), rand.nextInt(5),
+                                   rand.nextInt(9), 0, types[rand.nextInt(types.length)], rand.nextInt(3), rand.nextInt(4), rand.nextInt(4), 0);
+                player.addItem(pool[i]);
+            }
+            for (int step = 0; step < 60; step++) {
+                Item item = pool[rand.nextInt(pool.length)];
+                int op = rand.nextInt(4);
+                if (op == 0) player.unequipItem(item.getName());
+                else if (op == 1) player.setAttack(rand.nextInt(10));
+                else player.equipItem(item);
+
+                Player fresh = new Player();
+                fresh.applypClassFX(pClass);
+                for (Item equipped : player.getEquippedFlat()) fresh.equipItem(equipped);
+                fresh.setAttack(player.getAttack());
+                checks++;
+                if (player.getMeleeAttack() != fresh.getMeleeAttack() || player.getRangedAttack() != fresh.getRangedAttack()
+                    || player.getMagicAttack() != fresh.getMagicAttack()) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println(checks + " stat checks, " + mismatches + " differed from a fresh computation: " + (mismatches == 0 ? "ok" : "FAILED"));
+    }
+
+    // autoequip must reach the best goal stat any allowed set of items can: small random bags are
+    // tried against every subset the player will actually equip, for each goal, starting from
+    // either nothing or everything equipped
+    private static void checkAutoEquip(int bags) {
+        String[] types = {"weapon", "boots", "ring", "misc", "potion"};
+        SplittableRandom rand = new SplittableRandom(Main.sessionSeed);
+        int checks = 0, mismatches = 0;
+        for (int b = 0; b < bags; b++) {
+            Item[] items = new Item[1 + rand.nextInt(9)];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = new Item("Gear " + i, "", true, rand.nextBoolean(), rand.nextBoolean(), rand.nextBoolean(), rand.nextInt(4),
+                                    rand.nextInt(9) - 2, rand.nextInt(5) - 1, types[rand.nextInt(types.length)], rand.nextInt(5) - 1,
+                                    rand.nextInt(5) - 1, rand.nextInt(5) - 1, 0);
+            }
+            for (String goal : Player.LOADOUT_GOALS) {
+                int best = Integer.MIN_VALUE;
+                subsets:
+                for (int mask = 0; mask < 1 << items.length; mask++) {
+                    Player player = playerWith(items, false);
+                    for (int i = 0; i < items.length; i++) {
+                        if ((mask >> i & 1) == 0) continue;
+                        if (items[i].getType().equals("potion") || !player.equipItem(items[i])) continue subsets;
+                    }
+                    best = Math.max(best, goalStat(player, goal));
+                }
+                Player player = playerWith(items, rand.nextBoolean());
+                player.autoEquip(goal);
+                checks++;
+                if (goalStat(player, goal) != best) {
+                    System.out.println("  " + goal + ": autoequip reached " + goalStat(player, goal) + ", best is " + best);
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println(checks + " loadouts checked against brute force, " + mismatches + " worse: " + (mismatches == 0 ? "ok" : "FAILED"));
+    }
+
+    private static Player playerWith(Item[] items, boolean equipAll) {
+        Player player = new Player();
+        for (Item item : items) {
+            player.addItem(item);
+            if (equipAll && !item.getType().equals("potion")) player.equipItem(item);
+        }
+        return player;
+    }
+
+    private static int goalStat(Player player, String goal) {
+        switch (goal) {
+            case "melee": return player.getMeleeAttack();
+            case "ranged": return player.getRangedAttack();
+            case "magic": return player.getMagicAttack();
+            case "defense": return player.getDefense();
+            default: return player.getStealth();
+        }
+    }
+}
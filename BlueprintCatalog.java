@@ -0,0 +1,451 @@
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.*;
+import java.lang.ref.SoftReference;
+import java.nio.file.*;
+import java.util.*;
+
+// compiled, read-only view of room_blueprints.json with name-indexed templates
+public class BlueprintCatalog {
+
+    static class RoomBlueprint {
+        final String name;
+        final String description;
+        final String[] monsters;
+        final String[] items;
+
+        RoomBlueprint(String name, String description, String[] monsters, String[] items) {
+            this.name = name;
+            this.description = description;
+            this.monsters = monsters;
+            this.items = items;
+        }
+    }
+
+    static class Theme {
+        final String name;
+        final RoomBlueprint[] rooms;
+        // resolved once per theme so levels don't rescan the rooms for it
+        final RoomBlueprint portal;
+
+        Theme(String name, RoomBlueprint[] rooms) {
+            this.name = name;
+            this.rooms = rooms;
+            RoomBlueprint found = null;
+            for (RoomBlueprint room : rooms) {
+                if (room.name.equalsIgnoreCase("Portal")) {
+                    found = room;
+                    break;
+                }
+            }
+            this.portal = found;
+        }
+    }
+
+    // materializes a single theme, e.g. from a byte offset in the json or a snapshot record
+    interface ThemeSource {
+        Theme load(int index) throws IOException;
+    }
+
+    private final int themeCount;
+    private final ThemeSource themeSource;
+    // soft references let the gc drop themes nobody is generating from
+    private final java.util.concurrent.atomic.AtomicReferenceArray<SoftReference<Theme>> loadedThemes;
+    private final Map<String, MonsterTemplate> monsters;
+    private final Map<String, ItemTemplate> items;
+    // one immutable drop list per monster template, shared by every entity spawned from it
+    private final Map<MonsterTemplate, List<Drop>> dropTables = new IdentityHashMap<>();
+    // compiled weighted loot, only for templates that have any
+    private final Map<MonsterTemplate, LootTable> lootTables = new IdentityHashMap<>();
+
+    BlueprintCatalog(Theme[] themes, Map<String, MonsterTemplate> monsters, Map<String, ItemTemplate> items) {
+        this(themes.length, index -> themes[index], monsters, items);
+    }
+
+    BlueprintCatalog(int themeCount, ThemeSource themeSource, Map<String, MonsterTemplate> monsters, Map<String, ItemTemplate> items) {
+        this.themeCount = themeCount;
+        this.themeSource = themeSource;
+        this.loadedThemes = new java.util.concurrent.atomic.AtomicReferenceArray<>(themeCount);
+        this.monsters = monsters;
+        this.items = items;
+        for (MonsterTemplate m : monsters.values()) {
+            List<Drop> drops = new ArrayList<>();
+            for (String itemName : m.getDrops()) {
+                ItemTemplate item = getItem(itemName);
+                if (item != null) drops.add(new Drop(item, 1.0));
+            }
+            dropTables.put(m, Collections.unmodifiableList(drops));
+            LootTable loot = compileLoot(m);
+            if (loot != null) lootTables.put(m, loot);
+        }
+    }
+
+    // an entry naming an unknown item becomes an empty slot with its weight, so a typo doesn't make
+    // the other drops more likely
+    private LootTable compileLoot(MonsterTemplate m) {
+        String[] names = m.getLootItems();
+        if (names.length == 0 || m.getLootRolls() == 0) return null;
+        ItemTemplate[] outcomes = new ItemTemplate[names.length];
+        for (int i = 0; i < names.length; i++) {
+            outcomes[i] = names[i] == null ? null : getItem(names[i]);
+            if (names[i] != null && outcomes[i] == null) {
+                System.out.println("Warning: Loot of '" + m.getName() + "' names unknown item '" + names[i] + "'; it will never drop");
+            }
+        }
+        return new LootTable(outcomes, m.getLootWeights(), m.getLootRolls());
+    }
+
+    // same monsters and items with a different set of themes
+    BlueprintCatalog withThemes(Theme[] themes) {
+        return new BlueprintCatalog(themes, monsters, items);
+    }
+
+    public int getThemeCount() {
+        return themeCount;
+    }
+
+    // a loaded theme is read without locking, so batch workers don't queue up here; only loading
+    // one is serialized, so two threads never parse the same theme
+    Theme getTheme(int index) {
+        Theme theme = loadedTheme(index);
+        if (theme != null) return theme;
+        synchronized (loadedThemes) {
+            theme = loadedTheme(index);
+            if (theme == null) {
+                try {
+                    theme = themeSource.load(index);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to load theme " + index, e);
+                }
+                loadedThemes.set(index, new SoftReference<>(theme));
+            }
+            return theme;
+        }
+    }
+
+    private Theme loadedTheme(int index) {
+        SoftReference<Theme> ref = loadedThemes.get(index);
+        return ref == null ? null : ref.get();
+    }
+
+    public MonsterTemplate getMonster(String name) {
+        return monsters.get(key(name));
+    }
+
+    public ItemTemplate getItem(String name) {
+        return items.get(key(name));
+    }
+
+    public List<Drop> getDrops(MonsterTemplate monster) {
+        return dropTables.get(monster);
+    }
+
+    // null if the monster has no weighted loot
+    public LootTable getLootTable(MonsterTemplate monster) {
+        return lootTables.get(monster);
+    }
+
+    Collection<MonsterTemplate> monsters() {
+        return monsters.values();
+    }
+
+    Collection<ItemTemplate> items() {
+        return items.values();
+    }
+
+    // structural checks a catalog must pass before it replaces a running one
+    void validate() throws IOException {
+        if (themeCount == 0) throw new IOException("No themes defined");
+        for (int t = 0; t < themeCount; t++) {
+            Theme theme = getTheme(t);
+            if (theme.rooms.length == 0) throw new IOException("Theme '" + theme.name + "' has no rooms");
+        }
+    }
+
+    // lookups are case-insensitive, like the equalsIgnoreCase scans they replace
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // streams the blueprint json token by token straight into templates, never building a json tree
+    public static BlueprintCatalog read(Reader in) throws IOException {
+        Map<String, String> pool = new HashMap<>();
+        List<Theme> themes = new ArrayList<>();
+        Map<String, MonsterTemplate> monsters = new LinkedHashMap<>();
+        Map<String, ItemTemplate> items = new LinkedHashMap<>();
+        readBody(new JsonReader(in), themes, monsters, items, pool);
+        return new BlueprintCatalog(themes.toArray(new Theme[0]), monsters, items);
+    }
+
+    // like read(), but only indexes where each theme starts; a theme's rooms are parsed the first
+    // time a level picks it. themes are parsed from a private copy of the file's bytes, so edits to
+    // the file on disk never affect a catalog that is already open
+    public static BlueprintCatalog open(String jsonFile) throws IOException {
+        byte[] json = Files.readAllBytes(Paths.get(jsonFile));
+        int[] offsets = indexThemes(json);
+
+        Map<String, MonsterTemplate> monsters = new LinkedHashMap<>();
+        Map<String, ItemTemplate> items = new LinkedHashMap<>();
+        readBody(new JsonReader(utf8Reader(json, 0)), null, monsters, items, new HashMap<>());
+
+        ThemeSource source = index -> readTheme(new JsonReader(utf8Reader(json, offsets[index])), new HashMap<>());
+        return new BlueprintCatalog(offsets.length, source, monsters, items);
+    }
+
+    private static Reader utf8Reader(byte[] bytes, int from) {
+        return new InputStreamReader(new ByteArrayInputStream(bytes, from, bytes.length - from), java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    // skips themes when the list is null
+    private static void readBody(JsonReader reader, List<Theme> themes, Map<String, MonsterTemplate> monsters,
+                                 Map<String, ItemTemplate> items, Map<String, String> pool) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "themes":
+                    if (themes == null) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) themes.add(readTheme(reader, pool));
+                    reader.endArray();
+                    break;
+                // first definition wins on duplicate names, matching the old linear scans
+                case "monsters":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        MonsterTemplate m = readMonster(reader, pool);
+                        monsters.putIfAbsent(key(m.getName()), m);
+                    }
+                    reader.endArray();
+                    break;
+                case "items":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        ItemTemplate item = readItem(reader, pool);
+                        if (item != null) items.putIfAbsent(key(item.getName()), item);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    // byte offsets of each object in the top-level "themes" array, found with a raw structural
+    // scan that only tracks nesting depth and string state
+    private static int[] indexThemes(byte[] json) {
+        int[] offsets = new int[8];
+        int count = 0;
+        StringBuilder key = new StringBuilder();
+        String lastKey = null;
+        boolean inString = false, escaped = false, capturing = false, inThemes = false;
+        int depth = 0;
+        for (int pos = 0; pos < json.length; pos++) {
+            byte b = json[pos];
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (b == '\\') escaped = true;
+                else if (b == '"') {
+                    inString = false;
+                    if (capturing) lastKey = key.toString();
+                    capturing = false;
+                } else if (capturing) key.append((char) b);
+                continue;
+            }
+            switch (b) {
+                case '"':
+                    inString = true;
+                    capturing = depth == 1;
+                    key.setLength(0);
+                    break;
+                case '{':
+                    if (inThemes && depth == 2) {
+                        if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+                        offsets[count++] = pos;
+                    }
+                    depth++;
+                    break;
+                case '[':
+                    if (depth == 1 && "themes".equals(lastKey)) inThemes = true;
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    depth--;
+                    if (depth == 1) inThemes = false;
+                    break;
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    private static Theme readTheme(JsonReader reader, Map<String, String> pool) throws IOException {
+        String name = "";
+        List<RoomBlueprint> rooms = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = reader.nextString(); break;
+                case "rooms":
+                    reader.beginArray();
+                    while (reader.hasNext()) rooms.add(readRoom(reader, pool));
+                    reader.endArray();
+                    break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Theme(name, rooms.toArray(new RoomBlueprint[0]));
+    }
+
+    private static RoomBlueprint readRoom(JsonReader reader, Map<String, String> pool) throws IOException {
+        String name = null;
+        String description = null;
+        String[] monsters = new String[0];
+        String[] items = new String[0];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = reader.nextString(); break;
+                case "description": description = reader.nextString(); break;
+                case "monsters": monsters = readNames(reader, pool); break;
+                case "items": items = readNames(reader, pool); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (name == null || description == null) throw new IOException("Room blueprint is missing a name or description");
+        return new RoomBlueprint(name, description, monsters, items);
+    }
+
+    private static MonsterTemplate readMonster(JsonReader reader, Map<String, String> pool) throws IOException {
+        String name = null;
+        String desc = "";
+        int baseHealth = 0, baseAttack = 0, healthScaling = 0, attackScaling = 0;
+        boolean canMelee = false, canRanged = false, canMagic = false, autoAttack = false;
+        int rangeAttack = 0, magicAttack = 0, initiative = 0;
+        List<String> drops = new ArrayList<>();
+        List<String> lootItems = new ArrayList<>();
+        List<Integer> lootWeights = new ArrayList<>();
+        int lootRolls = 1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = reader.nextString(); break;
+                case "desc": desc = reader.nextString(); break;
+                case "baseHealth": baseHealth = reader.nextInt(); break;
+                case "baseAttack": baseAttack = reader.nextInt(); break;
+                case "scaling":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "health": healthScaling = reader.nextInt(); break;
+                            case "attack": attackScaling = reader.nextInt(); break;
+                            default: reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "canMelee": canMelee = reader.nextBoolean(); break;
+                case "canRanged": canRanged = reader.nextBoolean(); break;
+                case "canMagic": canMagic = reader.nextBoolean(); break;
+                case "rangeAttack": rangeAttack = reader.nextInt(); break;
+                case "magicAttack": magicAttack = reader.nextInt(); break;
+                case "initiative": initiative = reader.nextInt(); break;
+                case "autoAttack": autoAttack = reader.nextBoolean(); break;
+                case "drops":
+                    // plain names always drop; {"item", "weight" or "rarity"} objects go into the loot table
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        if (reader.peek() == JsonToken.STRING) drops.add(intern(reader.nextString(), pool));
+                        else if (reader.peek() == JsonToken.BEGIN_OBJECT) readLootEntry(reader, pool, lootItems, lootWeights);
+                        else reader.skipValue();
+                    }
+                    reader.endArray();
+                    break;
+                case "lootRolls": lootRolls = reader.nextInt(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (name == null) throw new IOException("Monster blueprint is missing a name");
+        if (lootRolls < 0) throw new IOException("Monster '" + name + "' has negative lootRolls");
+        int[] weights = new int[lootWeights.size()];
+        for (int i = 0; i < weights.length; i++) weights[i] = lootWeights.get(i);
+        return new MonsterTemplate(name, desc, baseHealth, baseAttack, healthScaling, attackScaling,
+                                   canMelee, canRanged, canMagic, rangeAttack, magicAttack, initiative, autoAttack,
+                                   drops.toArray(new String[0]), lootItems.toArray(new String[0]), weights, lootRolls);
+    }
+
+    // one weighted drop; an entry without an item is an empty slot, and a rarity stands in for the weight
+    private static void readLootEntry(JsonReader reader, Map<String, String> pool, List<String> items, List<Integer> weights) throws IOException {
+        String item = null;
+        Integer weight = null;
+        String rarity = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "item": item = intern(reader.nextString(), pool); break;
+                case "weight": weight = reader.nextInt(); break;
+                case "rarity": rarity = reader.nextString(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (weight == null) {
+            weight = rarity == null ? LootTable.rarityWeight("common") : LootTable.rarityWeight(rarity);
+            if (weight < 0) throw new IOException("Unknown drop rarity '" + rarity + "'");
+        } else if (weight < 0) {
+            throw new IOException("Negative drop weight " + weight + " for '" + item + "'");
+        }
+        if (weight == 0) return;
+        items.add(item);
+        weights.add(weight);
+    }
+
+    // returns null for nameless entries, which the old scans skipped
+    private static ItemTemplate readItem(JsonReader reader, Map<String, String> pool) throws IOException {
+        String name = null;
+        String description = "";
+        String type = "misc";
+        int healthFX = 0, attackFX = 0, defenseFX = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = reader.nextString(); break;
+                case "description": description = reader.nextString(); break;
+                case "type": type = intern(reader.nextString(), pool); break;
+                case "healthFX": healthFX = reader.nextInt(); break;
+                case "attackFX": attackFX = reader.nextInt(); break;
+                case "defenseFX": defenseFX = reader.nextInt(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (name == null) return null;
+        return new ItemTemplate(name, description, type, healthFX, attackFX, defenseFX);
+    }
+
+    // reads an array of names, ignoring anything that is not a string
+    private static String[] readNames(JsonReader reader, Map<String, String> pool) throws IOException {
+        List<String> names = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.STRING) names.add(intern(reader.nextString(), pool));
+            else reader.skipValue();
+        }
+        reader.endArray();
+        return names.toArray(new String[0]);
+    }
+
+    // room and drop lists repeat the same few names, so share one copy of each
+    private static String intern(String s, Map<String, String> pool) {
+        String existing = pool.putIfAbsent(s, s);
+        return existing != null ? existing : s;
+    }
+}
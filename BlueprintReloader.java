@@ -0,0 +1,91 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+
+// watches the blueprint json and swaps a freshly parsed catalog into the generator when it changes
+public class BlueprintReloader implements Closeable {
+    // editors often write a file in several steps, so wait for it to settle before parsing
+    private static final long SETTLE_MILLIS = 200;
+
+    private final RandomLevelGenerator generator;
+    private final Path file;
+    private final WatchService watcher;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Runnable onReload = () -> {};
+
+    public BlueprintReloader(RandomLevelGenerator generator, String jsonFile) throws IOException {
+        this.generator = generator;
+        this.file = Paths.get(jsonFile).toAbsolutePath();
+        this.watcher = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "blueprint-reloader");
+        this.thread.setDaemon(true);
+    }
+
+    // runs on the watcher thread after a new catalog has been published
+    public void setOnReload(Runnable onReload) {
+        this.onReload = onReload;
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void watch() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                Object context = event.context();
+                if (context instanceof Path && file.getFileName().equals(context)) changed = true;
+            }
+            key.reset();
+            if (changed) {
+                drainUntilQuiet();
+                reload();
+            }
+        }
+    }
+
+    private void drainUntilQuiet() {
+        try {
+            WatchKey key;
+            while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            running = false;
+        }
+    }
+
+    // parses eagerly so the published catalog never reads the file again; a bad file keeps the old catalog
+    void reload() {
+        if (!running) return;
+        try {
+            BlueprintCatalog fresh;
+            try (Reader reader = Files.newBufferedReader(file)) {
+                fresh = BlueprintCatalog.read(reader);
+            }
+            fresh.validate();
+            generator.setCatalog(fresh);
+            onReload.run();
+            System.out.println("[DEBUG] Reloaded blueprints from " + file.getFileName());
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[DEBUG] Blueprint reload failed, keeping previous data: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watcher.close();
+        thread.interrupt();
+    }
+}
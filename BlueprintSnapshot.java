@@ -0,0 +1,361 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// compact binary form of room_blueprints.json: a string table followed by fixed-width records
+//
+// layout (big-endian):
+//   header   magic, version, crc32 of the source json, length and crc32 of everything after the
+//            header, then counts for each section
+//   strings  int offset per string, then one utf-8 blob
+//   themes   name, firstRoom, roomCount
+//   rooms    name, description, firstMonsterRef, monsterCount, firstItemRef, itemCount
+//   monsters name, desc, baseHealth, baseAttack, healthScaling, attackScaling, flags,
+//            rangeAttack, magicAttack, initiative, firstDropRef, dropCount,
+//            lootRolls, firstLootRef, lootCount
+//   items    name, description, type, healthFX, attackFX, defenseFX
+//   refs     string indices referenced by rooms and monster drops; a loot entry takes two refs,
+//            the item's string index (-1 for an empty slot) and its weight
+public class BlueprintSnapshot {
+    static final int MAGIC = 0x52504742; // "RPGB"
+    static final int VERSION = 3;
+
+    static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 8 + 4 * 6;
+    static final int THEME_BYTES = 3 * 4;
+    static final int ROOM_BYTES = 6 * 4;
+    static final int MONSTER_BYTES = 15 * 4;
+    static final int ITEM_BYTES = 6 * 4;
+
+    static final int FLAG_MELEE = 1;
+    static final int FLAG_RANGED = 2;
+    static final int FLAG_MAGIC = 4;
+    static final int FLAG_AUTO_ATTACK = 8;
+
+    // conventional snapshot location next to the json it was compiled from
+    public static String snapshotPathFor(String jsonFile) {
+        return jsonFile + ".bin";
+    }
+
+    public static long checksum(String jsonFile) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(jsonFile)) {
+            int n;
+            while ((n = in.read(buf)) > 0) crc.update(buf, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    public static void compile(BlueprintCatalog catalog, long sourceChecksum, String snapshotFile) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<Integer> refs = new ArrayList<>();
+
+        int themeCount = catalog.getThemeCount();
+        int roomCount = 0;
+        for (int t = 0; t < themeCount; t++) roomCount += catalog.getTheme(t).rooms.length;
+        Collection<MonsterTemplate> monsters = catalog.monsters();
+        Collection<ItemTemplate> items = catalog.items();
+
+        ByteBuffer themeRecs = ByteBuffer.allocate(themeCount * THEME_BYTES);
+        ByteBuffer roomRecs = ByteBuffer.allocate(roomCount * ROOM_BYTES);
+        int roomIdx = 0;
+        for (int t = 0; t < themeCount; t++) {
+            BlueprintCatalog.Theme theme = catalog.getTheme(t);
+            themeRecs.putInt(intern(theme.name, strings, stringIds)).putInt(roomIdx).putInt(theme.rooms.length);
+            for (BlueprintCatalog.RoomBlueprint room : theme.rooms) {
+                roomRecs.putInt(intern(room.name, strings, stringIds));
+                roomRecs.putInt(intern(room.description, strings, stringIds));
+                roomRecs.putInt(refs.size()).putInt(room.monsters.length);
+                for (String m : room.monsters) refs.add(intern(m, strings, stringIds));
+                roomRecs.putInt(refs.size()).putInt(room.items.length);
+                for (String i : room.items) refs.add(intern(i, strings, stringIds));
+                roomIdx++;
+            }
+        }
+
+        ByteBuffer monsterRecs = ByteBuffer.allocate(monsters.size() * MONSTER_BYTES);
+        for (MonsterTemplate m : monsters) {
+            int flags = (m.canMelee() ? FLAG_MELEE : 0) | (m.canRanged() ? FLAG_RANGED : 0)
+                      | (m.canMagic() ? FLAG_MAGIC : 0) | (m.isAutoAttack() ? FLAG_AUTO_ATTACK : 0);
+            monsterRecs.putInt(intern(m.getName(), strings, stringIds));
+            monsterRecs.putInt(intern(m.getDesc(), strings, stringIds));
+            monsterRecs.putInt(m.getBaseHealth()).putInt(m.getBaseAttack());
+            monsterRecs.putInt(m.getHealthScaling()).putInt(m.getAttackScaling());
+            monsterRecs.putInt(flags);
+            monsterRecs.putInt(m.getRangeAttack()).putInt(m.getMagicAttack()).putInt(m.getInitiative());
+            monsterRecs.putInt(refs.size()).putInt(m.getDrops().length);
+            for (String d : m.getDrops()) refs.add(intern(d, strings, stringIds));
+            String[] lootItems = m.getLootItems();
+            monsterRecs.putInt(m.getLootRolls()).putInt(refs.size()).putInt(lootItems.length);
+            for (int l = 0; l < lootItems.length; l++) {
+                refs.add(lootItems[l] == null ? -1 : intern(lootItems[l], strings, stringIds));
+                refs.add(m.getLootWeights()[l]);
+            }
+        }
+
+        ByteBuffer itemRecs = ByteBuffer.allocate(items.size() * ITEM_BYTES);
+        for (ItemTemplate i : items) {
+            itemRecs.putInt(intern(i.getName(), strings, stringIds));
+            itemRecs.putInt(intern(i.getDescription(), strings, stringIds));
+            itemRecs.putInt(intern(i.getType(), strings, stringIds));
+            itemRecs.putInt(i.getHealthFX()).putInt(i.getAttackFX()).putInt(i.getDefenseFX());
+        }
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        int[] offsets = new int[strings.size()];
+        for (int s = 0; s < offsets.length; s++) {
+            offsets[s] = blob.size();
+            byte[] bytes = strings.get(s).getBytes(StandardCharsets.UTF_8);
+            blob.write(bytes, 0, bytes.length);
+        }
+
+        ByteBuffer stringTable = ByteBuffer.allocate(offsets.length * 4 + 4);
+        for (int off : offsets) stringTable.putInt(off);
+        stringTable.putInt(blob.size());
+
+        ByteBuffer stringBlob = ByteBuffer.allocate(blob.size()).put(blob.toByteArray());
+
+        ByteBuffer refTable = ByteBuffer.allocate(refs.size() * 4);
+        for (int r : refs) refTable.putInt(r);
+
+        ByteBuffer[] payload = { stringTable, stringBlob, themeRecs, roomRecs, monsterRecs, itemRecs, refTable };
+        CRC32 payloadCrc = new CRC32();
+        long payloadLength = 0;
+        for (ByteBuffer section : payload) {
+            section.flip();
+            payloadLength += section.remaining();
+            payloadCrc.update(section.duplicate());
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(sourceChecksum);
+        header.putInt((int) payloadLength).putLong(payloadCrc.getValue());
+        header.putInt(strings.size()).putInt(themeCount).putInt(roomCount);
+        header.putInt(monsters.size()).putInt(items.size()).putInt(refs.size());
+        header.flip();
+
+        // write to a temp file first so a crash never leaves a half-written snapshot behind
+        Path target = Paths.get(snapshotFile);
+        Path tmp = Paths.get(snapshotFile + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) out.write(header);
+            for (ByteBuffer section : payload) {
+                while (section.hasRemaining()) out.write(section);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // returns null when the snapshot is missing, from another version, stale against the json or
+    // damaged, and the caller parses the json instead. every record is bounds-checked here, so
+    // decoding a theme later, during play, can't run off the end of the mapping
+    public static BlueprintCatalog load(String snapshotFile, String jsonFile) throws IOException {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) return null;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) return null;
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            if (buf.getLong() != checksum(jsonFile)) return null;
+            try {
+                int payloadLength = buf.getInt();
+                long payloadCrc = buf.getLong();
+                if (payloadLength != ch.size() - HEADER_BYTES) throw new IOException("expected " + payloadLength + " bytes after the header, found " + (ch.size() - HEADER_BYTES));
+                CRC32 crc = new CRC32();
+                crc.update(buf.duplicate().position(HEADER_BYTES));
+                if (crc.getValue() != payloadCrc) throw new IOException("checksum mismatch");
+                return decode(buf);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("[DEBUG] Ignoring damaged snapshot " + path.getFileName() + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private static BlueprintCatalog decode(ByteBuffer buf) throws IOException {
+        Records records = new Records(buf);
+        records.validate();
+
+        Map<String, MonsterTemplate> monsters = new LinkedHashMap<>();
+        for (int m = 0; m < records.monsterCount; m++) {
+            MonsterTemplate template = records.monster(m);
+            monsters.put(BlueprintCatalog.key(template.getName()), template);
+        }
+
+        Map<String, ItemTemplate> items = new LinkedHashMap<>();
+        for (int i = 0; i < records.itemCount; i++) {
+            ItemTemplate template = records.item(i);
+            items.put(BlueprintCatalog.key(template.getName()), template);
+        }
+
+        // themes stay in the mapping and are only decoded when a level picks them
+        return new BlueprintCatalog(records.themeCount, records::theme, monsters, items);
+    }
+
+    // absolute-offset reader over a mapped snapshot; safe to share because it never moves the buffer position
+    private static class Records {
+        final ByteBuffer buf;
+        final int stringCount, themeCount, roomCount, monsterCount, itemCount, refCount;
+        final int offsetsAt, blobAt, themesAt, roomsAt, monstersAt, itemsAt, refsAt;
+
+        Records(ByteBuffer buf) throws IOException {
+            this.buf = buf;
+            stringCount = buf.getInt();
+            themeCount = buf.getInt();
+            roomCount = buf.getInt();
+            monsterCount = buf.getInt();
+            itemCount = buf.getInt();
+            refCount = buf.getInt();
+            check(stringCount >= 0 && themeCount >= 0 && roomCount >= 0 && monsterCount >= 0 && itemCount >= 0 && refCount >= 0, "negative count");
+            offsetsAt = buf.position();
+            long blob = offsetsAt + (stringCount + 1L) * 4;
+            check(blob <= buf.limit(), "string table runs past the end");
+            blobAt = (int) blob;
+            long themes = blob + buf.getInt(offsetsAt + stringCount * 4);
+            long rooms = themes + (long) themeCount * THEME_BYTES;
+            long monsters = rooms + (long) roomCount * ROOM_BYTES;
+            long items = monsters + (long) monsterCount * MONSTER_BYTES;
+            long refs = items + (long) itemCount * ITEM_BYTES;
+            check(themes >= blob && refs + (long) refCount * 4 == buf.limit(), "section sizes don't add up to the file length");
+            themesAt = (int) themes;
+            roomsAt = (int) rooms;
+            monstersAt = (int) monsters;
+            itemsAt = (int) items;
+            refsAt = (int) refs;
+        }
+
+        // checks every offset, index and range the decoders follow
+        void validate() throws IOException {
+            int previous = 0;
+            for (int s = 0; s <= stringCount; s++) {
+                int offset = buf.getInt(offsetsAt + s * 4);
+                check(offset >= previous, "string offsets out of order");
+                previous = offset;
+            }
+            for (int t = 0; t < themeCount; t++) {
+                int at = themesAt + t * THEME_BYTES;
+                checkString(buf.getInt(at));
+                checkRange(buf.getInt(at + 4), buf.getInt(at + 8), roomCount, "theme rooms");
+            }
+            for (int r = 0; r < roomCount; r++) {
+                int at = roomsAt + r * ROOM_BYTES;
+                checkString(buf.getInt(at));
+                checkString(buf.getInt(at + 4));
+                checkStringRefs(buf.getInt(at + 8), buf.getInt(at + 12));
+                checkStringRefs(buf.getInt(at + 16), buf.getInt(at + 20));
+            }
+            for (int m = 0; m < monsterCount; m++) {
+                int at = monstersAt + m * MONSTER_BYTES;
+                checkString(buf.getInt(at));
+                checkString(buf.getInt(at + 4));
+                checkStringRefs(buf.getInt(at + 40), buf.getInt(at + 44));
+                check(buf.getInt(at + 48) >= 0, "negative loot rolls");
+                int firstLoot = buf.getInt(at + 52);
+                int lootCount = buf.getInt(at + 56);
+                checkRange(firstLoot, lootCount * 2L, refCount, "loot entries");
+                for (int l = 0; l < lootCount; l++) {
+                    int item = buf.getInt(refsAt + (firstLoot + 2 * l) * 4);
+                    if (item >= 0) checkString(item);
+                    check(item >= -1 && buf.getInt(refsAt + (firstLoot + 2 * l + 1) * 4) > 0, "bad loot entry");
+                }
+            }
+            for (int i = 0; i < itemCount; i++) {
+                int at = itemsAt + i * ITEM_BYTES;
+                for (int f = 0; f < 3; f++) checkString(buf.getInt(at + f * 4));
+            }
+        }
+
+        private void checkString(int idx) throws IOException {
+            check(idx >= 0 && idx < stringCount, "string index " + idx + " out of range");
+        }
+
+        private void checkStringRefs(int firstRef, int count) throws IOException {
+            checkRange(firstRef, count, refCount, "string refs");
+            for (int i = 0; i < count; i++) checkString(buf.getInt(refsAt + (firstRef + i) * 4));
+        }
+
+        private static void checkRange(long first, long count, int size, String what) throws IOException {
+            check(first >= 0 && count >= 0 && first + count <= size, what + " out of range");
+        }
+
+        private static void check(boolean ok, String problem) throws IOException {
+            if (!ok) throw new IOException(problem);
+        }
+
+        String string(int idx) {
+            int start = buf.getInt(offsetsAt + idx * 4);
+            int len = buf.getInt(offsetsAt + (idx + 1) * 4) - start;
+            byte[] bytes = new byte[len];
+            buf.get(blobAt + start, bytes, 0, len);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String[] strings(int firstRef, int count) {
+            String[] out = new String[count];
+            for (int i = 0; i < count; i++) out[i] = string(buf.getInt(refsAt + (firstRef + i) * 4));
+            return out;
+        }
+
+        BlueprintCatalog.Theme theme(int t) {
+            int at = themesAt + t * THEME_BYTES;
+            int firstRoom = buf.getInt(at + 4);
+            BlueprintCatalog.RoomBlueprint[] rooms = new BlueprintCatalog.RoomBlueprint[buf.getInt(at + 8)];
+            for (int r = 0; r < rooms.length; r++) {
+                int rat = roomsAt + (firstRoom + r) * ROOM_BYTES;
+                rooms[r] = new BlueprintCatalog.RoomBlueprint(
+                    string(buf.getInt(rat)),
+                    string(buf.getInt(rat + 4)),
+                    strings(buf.getInt(rat + 8), buf.getInt(rat + 12)),
+                    strings(buf.getInt(rat + 16), buf.getInt(rat + 20))
+                );
+            }
+            return new BlueprintCatalog.Theme(string(buf.getInt(at)), rooms);
+        }
+
+        MonsterTemplate monster(int m) {
+            int at = monstersAt + m * MONSTER_BYTES;
+            int flags = buf.getInt(at + 24);
+            int firstLoot = buf.getInt(at + 52);
+            String[] lootItems = new String[buf.getInt(at + 56)];
+            int[] lootWeights = new int[lootItems.length];
+            for (int l = 0; l < lootItems.length; l++) {
+                int item = buf.getInt(refsAt + (firstLoot + 2 * l) * 4);
+                lootItems[l] = item < 0 ? null : string(item);
+                lootWeights[l] = buf.getInt(refsAt + (firstLoot + 2 * l + 1) * 4);
+            }
+            return new MonsterTemplate(
+                string(buf.getInt(at)), string(buf.getInt(at + 4)),
+                buf.getInt(at + 8), buf.getInt(at + 12), buf.getInt(at + 16), buf.getInt(at + 20),
+                (flags & FLAG_MELEE) != 0, (flags & FLAG_RANGED) != 0, (flags & FLAG_MAGIC) != 0,
+                buf.getInt(at + 28), buf.getInt(at + 32), buf.getInt(at + 36),
+                (flags & FLAG_AUTO_ATTACK) != 0,
+                strings(buf.getInt(at + 40), buf.getInt(at + 44)),
+                lootItems, lootWeights, buf.getInt(at + 48)
+            );
+        }
+
+        ItemTemplate item(int i) {
+            int at = itemsAt + i * ITEM_BYTES;
+            return new ItemTemplate(
+                string(buf.getInt(at)), string(buf.getInt(at + 4)), string(buf.getInt(at + 8)),
+                buf.getInt(at + 12), buf.getInt(at + 16), buf.getInt(at + 20)
+            );
+        }
+    }
+
+    private static int intern(String s, List<String> strings, Map<String, Integer> ids) {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.add(s);
+            ids.put(s, id);
+        }
+        return id;
+    }
+}
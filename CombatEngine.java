@@ -0,0 +1,262 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+// a fight between the player and one entity, with no console i/o. decisions come from an
+// ActionSource and everything that happens is reported to a Sink, so the interactive game,
+// bots and benchmarks all run the same rules. an engine can be reused for any number of fights
+public class CombatEngine {
+
+    public enum Action { MELEE, RANGED, MAGIC, CLOSER, AWAY, RUN, USE, SHOW_INVENTORY, UNKNOWN }
+
+    // DRAW is a fight stopped by the round limit
+    public enum Outcome { ENEMY_DEFEATED, PLAYER_DEFEATED, ESCAPED, DRAW }
+
+    // the two ways a fight starts, which also differ in how the enemy behaves
+    public enum Style {
+        // an auto-attacking entity jumps the player on entering a room: starts close, the enemy
+        // only answers actions that took a turn and otherwise just closes in
+        AMBUSH(1, false, true, false),
+        // the battle command: starts far, a faster enemy gets a free hit, and the enemy acts every
+        // round and repositions to suit its attacks
+        ENGAGE(3, true, false, true);
+
+        final int startDistance;
+        final boolean firstStrikeHits;
+        final boolean enemyWaitsForPlayer;
+        final boolean enemyRepositions;
+
+        Style(int startDistance, boolean firstStrikeHits, boolean enemyWaitsForPlayer, boolean enemyRepositions) {
+            this.startDistance = startDistance;
+            this.firstStrikeHits = firstStrikeHits;
+            this.enemyWaitsForPlayer = enemyWaitsForPlayer;
+            this.enemyRepositions = enemyRepositions;
+        }
+    }
+
+    public enum Event {
+        ENEMY_FIRST, FIRST_STRIKE, ROUND_STARTED,
+        MELEE_HIT, NO_MELEE_WEAPON, TOO_FAR_FOR_MELEE,
+        RANGED_HIT, NO_RANGED_WEAPON, TOO_CLOSE_FOR_RANGED,
+        MAGIC_HIT, NO_MAGIC_ITEM,
+        MOVED_CLOSER, ALREADY_CLOSE, MOVED_AWAY, ALREADY_FAR,
+        ESCAPED, ESCAPE_FAILED,
+        ITEM_USED, ITEM_FAILED, SHOW_INVENTORY, UNKNOWN_ACTION,
+        ENEMY_MELEE, ENEMY_RANGED, ENEMY_MAGIC, DAMAGE_TAKEN,
+        ENEMY_CLOSER, ENEMY_AWAY, ENEMY_WAITS,
+        ITEM_DROPPED, ENEMY_DEFEATED, PLAYER_DEFEATED
+    }
+
+    public interface ActionSource {
+        Action nextAction(CombatEngine fight);
+
+        // the consumable to use for a USE action, or null to take no turn
+        Item chooseItem(CombatEngine fight);
+    }
+
+    // amount is the damage dealt for hits, damage taken for DAMAGE_TAKEN (with blocked the part
+    // defense absorbed), and 0 otherwise; item is set for item events
+    public interface Sink {
+        void onEvent(CombatEngine fight, Event event, int amount, int blocked, Item item);
+    }
+
+    private static final int MAX_DISTANCE = 3;
+
+    private final ActionSource actions;
+    private final Sink sink;
+    private Player player;
+    private Entity enemy;
+    private Style style;
+    private int distance;
+    private int roundLimit;
+
+    public CombatEngine(ActionSource actions, Sink sink) {
+        this.actions = actions;
+        this.sink = sink;
+    }
+
+    public Player getPlayer() { return player; }
+    public Entity getEnemy() { return enemy; }
+    public Style getStyle() { return style; }
+    // 1 is close, 2 mid and 3 far
+    public int getDistance() { return distance; }
+
+    // fights still going after this many rounds are stopped as a draw; 0 means no limit
+    public void setRoundLimit(int roundLimit) {
+        this.roundLimit = roundLimit;
+    }
+
+    // runs the fight to the end; drops of a defeated enemy land in the room
+    public Outcome fight(Player player, Entity enemy, Room room, Style style, SplittableRandom rand) {
+        this.player = player;
+        this.enemy = enemy;
+        this.style = style;
+        this.distance = style.startDistance;
+        boolean inBattle = true;
+        int rounds = 0;
+
+        if (player.getStealth() < enemy.getInitiative()) {
+            if (style.firstStrikeHits) {
+                emit(Event.FIRST_STRIKE, enemy.getAttack());
+                hitPlayer(enemy.getAttack());
+            } else {
+                emit(Event.ENEMY_FIRST, 0);
+            }
+        }
+
+        while (player.isAlive() && enemy.isAlive() && inBattle) {
+            if (roundLimit > 0 && rounds++ == roundLimit) return Outcome.DRAW;
+            emit(Event.ROUND_STARTED, 0);
+            boolean playerTurn = true;
+            switch (actions.nextAction(this)) {
+                case MELEE:
+                    if (distance != 1) {
+                        emit(Event.TOO_FAR_FOR_MELEE, 0);
+                    } else if (!player.hasMeleeItem()) {
+                        emit(Event.NO_MELEE_WEAPON, 0);
+                    } else {
+                        hitEnemy(Event.MELEE_HIT, player.getMeleeAttack());
+                        playerTurn = false;
+                    }
+                    break;
+                case RANGED:
+                    if (distance < 2) {
+                        emit(Event.TOO_CLOSE_FOR_RANGED, 0);
+                    } else if (!player.hasRangedItem()) {
+                        emit(Event.NO_RANGED_WEAPON, 0);
+                    } else {
+                        hitEnemy(Event.RANGED_HIT, player.getRangedAttack());
+                        playerTurn = false;
+                    }
+                    break;
+                case MAGIC:
+                    if (!player.hasMagicItem()) {
+                        emit(Event.NO_MAGIC_ITEM, 0);
+                    } else {
+                        hitEnemy(Event.MAGIC_HIT, player.getMagicAttack());
+                        playerTurn = false;
+                    }
+                    break;
+                case CLOSER:
+                    if (distance > 1) {
+                        distance--;
+                        emit(Event.MOVED_CLOSER, 0);
+                        playerTurn = false;
+                    } else {
+                        emit(Event.ALREADY_CLOSE, 0);
+                    }
+                    break;
+                case AWAY:
+                    if (distance < MAX_DISTANCE) {
+                        distance++;
+                        emit(Event.MOVED_AWAY, 0);
+                        playerTurn = false;
+                    } else {
+                        emit(Event.ALREADY_FAR, 0);
+                    }
+                    break;
+                case RUN:
+                    int escapeChance = distance * 35 + 10;
+                    if (rand.nextInt(100) < escapeChance) {
+                        emit(Event.ESCAPED, 0);
+                        inBattle = false;
+                    } else {
+                        emit(Event.ESCAPE_FAILED, 0);
+                        playerTurn = false;
+                    }
+                    break;
+                case USE:
+                    Item item = actions.chooseItem(this);
+                    if (item == null) break;
+                    if (player.consume(item)) {
+                        sink.onEvent(this, Event.ITEM_USED, 0, 0, item);
+                        playerTurn = false;
+                    } else {
+                        sink.onEvent(this, Event.ITEM_FAILED, 0, 0, item);
+                    }
+                    break;
+                case SHOW_INVENTORY:
+                    emit(Event.SHOW_INVENTORY, 0);
+                    break;
+                default:
+                    emit(Event.UNKNOWN_ACTION, 0);
+            }
+
+            boolean enemyActs = !style.enemyWaitsForPlayer || !playerTurn;
+            if (enemyActs && enemy.isAlive() && inBattle) enemyTurn();
+
+            if (!enemy.isAlive()) {
+                List<Drop> drops = enemy.getDrops();
+                for (int i = 0; i < drops.size(); i++) {
+                    Drop drop = drops.get(i);
+                    if (rand.nextDouble() < drop.getChance()) {
+                        Item dropped = drop.getItem();
+                        room.addItem(dropped);
+                        sink.onEvent(this, Event.ITEM_DROPPED, 0, 0, dropped);
+                    }
+                }
+                // weighted loot is only turned into items here, for monsters that actually die
+                LootTable loot = enemy.getLoot();
+                if (loot != null) {
+                    for (int r = 0; r < loot.getRolls(); r++) {
+                        ItemTemplate rolled = loot.sample(rand);
+                        if (rolled == null) continue;
+                        Item dropped = rolled.newItem();
+                        room.addItem(dropped);
+                        sink.onEvent(this, Event.ITEM_DROPPED, 0, 0, dropped);
+                    }
+                }
+                enemy.setDefeated(true);
+                emit(Event.ENEMY_DEFEATED, 0);
+            }
+            if (!player.isAlive()) {
+                emit(Event.PLAYER_DEFEATED, 0);
+                break;
+            }
+        }
+
+        if (!player.isAlive()) return Outcome.PLAYER_DEFEATED;
+        return enemy.isAlive() ? Outcome.ESCAPED : Outcome.ENEMY_DEFEATED;
+    }
+
+    private void enemyTurn() {
+        if (distance == 1 && enemy.canMelee()) {
+            emit(Event.ENEMY_MELEE, enemy.getAttack());
+            hitPlayer(enemy.getAttack());
+        } else if (distance >= 2 && enemy.canRanged()) {
+            emit(Event.ENEMY_RANGED, enemy.getRangeAttack());
+            hitPlayer(enemy.getRangeAttack());
+        } else if (enemy.canMagic()) {
+            emit(Event.ENEMY_MAGIC, enemy.getMagicAttack());
+            hitPlayer(enemy.getMagicAttack());
+        } else if (style.enemyRepositions) {
+            if (enemy.canMelee() && distance > 1) {
+                distance--;
+                emit(Event.ENEMY_CLOSER, 0);
+            } else if (enemy.canRanged() && distance < 2) {
+                distance++;
+                emit(Event.ENEMY_AWAY, 0);
+            } else {
+                emit(Event.ENEMY_WAITS, 0);
+            }
+        } else if (distance > 1) {
+            distance--;
+            emit(Event.ENEMY_CLOSER, 0);
+        } else {
+            emit(Event.ENEMY_WAITS, 0);
+        }
+    }
+
+    private void hitEnemy(Event event, int damage) {
+        emit(event, damage);
+        enemy.takeDamage(damage);
+    }
+
+    private void hitPlayer(int damage) {
+        int taken = player.absorbDamage(damage);
+        sink.onEvent(this, Event.DAMAGE_TAKEN, taken, damage - taken, null);
+    }
+
+    private void emit(Event event, int amount) {
+        sink.onEvent(this, event, amount, 0, null);
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+// the interactive side of CombatEngine: reads actions from the terminal and prints what happens
+public class ConsoleCombat implements CombatEngine.ActionSource, CombatEngine.Sink {
+    private final Scanner scanner;
+
+    public ConsoleCombat(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public CombatEngine.Action nextAction(CombatEngine fight) {
+        boolean ambush = fight.getStyle() == CombatEngine.Style.AMBUSH;
+        if (ambush) {
+            System.out.println("Choose action: melee, ranged, magic, use, show inventory, move closer, move away, run");
+        } else {
+            System.out.println("Choose action: melee, ranged, magic, move closer, move away, run");
+            System.out.print("> ");
+        }
+        switch (scanner.nextLine().trim().toLowerCase()) {
+            case "melee": return CombatEngine.Action.MELEE;
+            case "ranged": return CombatEngine.Action.RANGED;
+            case "magic": return CombatEngine.Action.MAGIC;
+            case "move closer":
+            case "closer": return CombatEngine.Action.CLOSER;
+            case "move away":
+            case "away": return CombatEngine.Action.AWAY;
+            case "run":
+            case "escape": return CombatEngine.Action.RUN;
+            case "use": return CombatEngine.Action.USE;
+            case "show":
+            case "show inventory": return ambush ? CombatEngine.Action.SHOW_INVENTORY : CombatEngine.Action.UNKNOWN;
+            default: return CombatEngine.Action.UNKNOWN;
+        }
+    }
+
+    @Override
+    public Item chooseItem(CombatEngine fight) {
+        Player player = fight.getPlayer();
+        List<Item> usableItems = new ArrayList<>();
+        for (int i = 0; i < player.getInventory().size(); i++) {
+            Item item = player.getInventory().get(i);
+            if (item.isUsable()) {
+                usableItems.add(item);
+                System.out.println("  (" + (usableItems.size()) + ") " + item.getName() + ": " + item.getDescription());
+            }
+        }
+        if (usableItems.isEmpty()) {
+            System.out.println("You have no usable items!");
+            return null;
+        }
+        System.out.print("Which item to use? (number or 'cancel'): ");
+        String useInput = scanner.nextLine().trim().toLowerCase();
+        if (useInput.equals("cancel")) return null;
+        try {
+            int useIdx = Integer.parseInt(useInput) - 1;
+            if (useIdx >= 0 && useIdx < usableItems.size()) return usableItems.get(useIdx);
+            System.out.println("Invalid item number.");
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid input.");
+        }
+        return null;
+    }
+
+    @Override
+    public void onEvent(CombatEngine fight, CombatEngine.Event event, int amount, int blocked, Item item) {
+        Player player = fight.getPlayer();
+        String enemy = fight.getEnemy().getName();
+        int distance = fight.getDistance();
+        switch (event) {
+            case ENEMY_FIRST: System.out.println(enemy + " strikes first!"); break;
+            case FIRST_STRIKE: System.out.println(enemy + " notices you first and attacks!"); break;
+            case ROUND_STARTED:
+                System.out.println("\nDistance to " + enemy + ": " + (distance == 3 ? "Far" : distance == 2 ? "Mid" : "Close"));
+                System.out.println("Your health: " + player.getHealth() + " | " + enemy + " health: " + fight.getEnemy().getHealth());
+                break;
+            case MELEE_HIT: System.out.println("You strike with a melee attack for " + amount + " damage!"); break;
+            case NO_MELEE_WEAPON: System.out.println("You have no melee weapon equipped!"); break;
+            case TOO_FAR_FOR_MELEE: System.out.println("You are too far for a melee attack!"); break;
+            case RANGED_HIT: System.out.println("You fire a ranged attack for " + amount + " damage!"); break;
+            case NO_RANGED_WEAPON: System.out.println("You have no ranged weapon equipped!"); break;
+            case TOO_CLOSE_FOR_RANGED: System.out.println("You are too close for a ranged attack!"); break;
+            case MAGIC_HIT: System.out.println("You cast a magic attack for " + amount + " damage!"); break;
+            case NO_MAGIC_ITEM: System.out.println("You have no magic item equipped!"); break;
+            case MOVED_CLOSER: System.out.println("You move closer to " + enemy + "."); break;
+            case ALREADY_CLOSE: System.out.println("You are already at close range!"); break;
+            case MOVED_AWAY: System.out.println("You move farther from " + enemy + "."); break;
+            case ALREADY_FAR: System.out.println("You are already at the farthest distance!"); break;
+            case ESCAPED: System.out.println("You successfully escaped!"); break;
+            case ESCAPE_FAILED: System.out.println("You failed to escape!"); break;
+            case ITEM_USED:
+                Player.printUse(item);
+                System.out.println("You used " + item.getName() + "!");
+                break;
+            case ITEM_FAILED: System.out.println("Failed to use " + item.getName() + "."); break;
+            case SHOW_INVENTORY:
+                Main.showInventorySummary(player, new ArrayList<>(player.getInventory()), player.getEquippedFlat());
+                break;
+            case UNKNOWN_ACTION: System.out.println("Unknown action. Try: melee, ranged, magic, move closer, move away, run"); break;
+            case ENEMY_MELEE: System.out.println(enemy + " attacks you for " + amount + " damage!"); break;
+            case ENEMY_RANGED: System.out.println(enemy + " fires a ranged attack for " + amount + " damage!"); break;
+            case ENEMY_MAGIC: System.out.println(enemy + " casts a spell for " + amount + " damage!"); break;
+            case DAMAGE_TAKEN: System.out.println("Your defense absorbs " + blocked + " damage (" + amount + " taken)"); break;
+            case ENEMY_CLOSER: System.out.println(enemy + " moves closer!"); break;
+            case ENEMY_AWAY: System.out.println(enemy + " moves farther away!"); break;
+            case ENEMY_WAITS: System.out.println(enemy + " waits for an opportunity..."); break;
+            case ITEM_DROPPED: System.out.println("You found a " + item.getName() + "!"); break;
+            case ENEMY_DEFEATED: System.out.println("You defeated " + enemy + "!"); break;
+            case PLAYER_DEFEATED: System.out.println("You have been defeated!"); break;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 public class Drop {
-    public Item item;
+    // drops are shared by every entity of a template, so each roll builds a fresh item
+    public ItemTemplate template;
     public double chance;
 
-    public Drop(Item item, double chance) {
-        this.item = item;
+    public Drop(ItemTemplate template, double chance) {
+        this.template = template;
         this.chance = chance;
     }
 
+    public Drop(Item item, double chance) {
+        this(item.getTemplate(), chance);
+    }
+
         public Item getItem() {
-            return this.item;
+            return template.newItem();
         }
 
         public double getChance() {
@@ -18,4 +23,4 @@ public class Drop {
         public void setChance(double chance) {
             this.chance = chance;
         }
-    }
\ No newline at end of file
+    }
@@ -2,46 +2,64 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Entity {
-    private String name;
-    private String desc;
-    private boolean hostile;
+    // shared, immutable stats; only combat state lives on the instance
+    private final MonsterTemplate template;
+    private final boolean hostile;
     private boolean defeated;
-    private int health;
-    private int attack;
-    private int rangeAttack;
-    private int magicAttack;
-    private boolean canMelee;
-    private boolean canRanged;
-    private boolean canMagic;
-    private int initiative;
-    private boolean autoAttack;
+    // per-instance health and attack; the rest of the combat stats live on the template
+    private final StatSheet stats;
     private List<Drop> drops;
+    // drops start out as the template's shared list and are copied on first change
+    private boolean dropsShared;
+    // the template's compiled loot, rolled on defeat; null if it has none
+    private final LootTable loot;
+    // the level's win-condition counters, told whenever this entity is defeated or revived
+    private HostileCounters counters;
+    private GameEvents events;
 
     public Entity(String name, String desc, boolean hostile, boolean defeated, int health, int attack, boolean canMelee, boolean canRanged, boolean canMagic, int rangeAttack, int magicAttack, int initiative, boolean autoattack, List<Drop> drops) {
-        this.name = name;
-        this.desc = desc;
+        this.template = new MonsterTemplate(name, desc, health, attack, 0, 0, canMelee, canRanged, canMagic, rangeAttack, magicAttack, initiative, autoattack, new String[0]);
         this.hostile = hostile;
         this.defeated = defeated;
-        this.health = health;
-        this.attack = attack;
-        this.canMelee = canMelee;
-        this.canRanged = canRanged;
-        this.canMagic = canMagic;
-        this.rangeAttack = rangeAttack;
-        this.magicAttack = magicAttack;
-        this.initiative = initiative;
-        this.autoAttack = autoattack;
+        this.stats = new StatSheet();
+        stats.set(StatSheet.HEALTH, health);
+        stats.set(StatSheet.ATTACK, attack);
         this.drops = drops;
+        this.loot = null;
+    }
+
+    public Entity(MonsterTemplate template, int level, List<Drop> sharedDrops) {
+        this(template, level, sharedDrops, null);
+    }
+
+    public Entity(MonsterTemplate template, int level, List<Drop> sharedDrops, LootTable loot) {
+        this.template = template;
+        this.loot = loot;
+        this.hostile = true;
+        this.stats = template.statsAt(level);
+        this.drops = sharedDrops;
+        this.dropsShared = true;
+    }
+
+    // the counters already include this entity; it only reports changes from here on
+    void setCounters(HostileCounters counters) {
+        this.counters = counters;
+    }
 
+    void setEvents(GameEvents events) {
+        this.events = events;
+    }
 
+    public MonsterTemplate getTemplate() {
+        return template;
     }
 
     public String getName() {
-        return name;
+        return template.getName();
     }
 
     public String getDesc() {
-        return desc;
+        return template.getDesc();
     }
 
     public boolean isHostile() {
@@ -53,68 +71,85 @@ public class Entity {
     }
 
     public int getHealth() {
-        return health;
+        return stats.get(StatSheet.HEALTH);
     }
 
     public int getAttack() {
-        return attack;
+        return stats.get(StatSheet.ATTACK);
     }
 
     public void setHealth(int health) {
-        this.health = health;
+        stats.set(StatSheet.HEALTH, health);
     }
 
     public void setAttack(int attack) {
-        this.attack = attack;
+        stats.set(StatSheet.ATTACK, attack);
+    }
+
+    // multiplies health and attack together, e.g. to turn a monster into a boss
+    public void scaleStats(int factor) {
+        stats.scale(factor);
     }
 
     public void setDefeated(boolean defeated) {
+        boolean changed = defeated != this.defeated;
+        if (counters != null && hostile && changed) {
+            if (defeated) counters.defeated(getName());
+            else counters.spawned(getName());
+        }
         this.defeated = defeated;
+        if (events != null && defeated && changed) events.entityDefeated(this);
     }
 
     public void takeDamage(int dmg) {
-        this.health -= dmg;
+        stats.add(StatSheet.HEALTH, -dmg);
     }
 
     public boolean isAlive() {
-        return health > 0;
+        return getHealth() > 0;
     }
 
     public boolean canRanged() {
-        return canRanged;
+        return template.canRanged();
     }
 
     public boolean canMagic() {
-        return canMagic;
+        return template.canMagic();
     }
 
     public boolean canMelee() {
-        return canMelee;
+        return template.canMelee();
     }
 
     public int getRangeAttack() {
-        return rangeAttack;
+        return template.getRangeAttack();
     }
 
     public int getMagicAttack() {
-        return magicAttack;
+        return template.getMagicAttack();
     }
-    
+
     public int getInitiative() {
-        return initiative;
+        return template.getInitiative();
     }
 
     public boolean isAutoAttack() {
-        return autoAttack;
+        return template.isAutoAttack();
     }
 
     public List<Drop> getDrops() {
         return this.drops;
     }
 
+    public LootTable getLoot() {
+        return loot;
+    }
+
     public void addDrop(Drop drop) {
+        if (dropsShared) {
+            this.drops = new ArrayList<>(this.drops);
+            dropsShared = false;
+        }
         this.drops.add(drop);
     }
 }
-
-
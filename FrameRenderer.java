@@ -0,0 +1,204 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// builds a whole screen of output in one reusable buffer and writes it with a single flush, instead
+// of a syscall per println. colors go through color(), so turning ansi off strips them everywhere.
+// in compact mode a screen is split into numbered sections and any section whose text is the same
+// as the last time it was shown is left out of the frame; list-like sections can also be cut down
+// to just the lines that are new
+public class FrameRenderer {
+    public static final String RESET = "\u001B[0m";
+    public static final String RED = "\u001B[31m";
+    public static final String GREEN = "\u001B[32m";
+    public static final String YELLOW = "\u001B[33m";
+    public static final String BLUE = "\u001B[34m";
+    public static final String MAGENTA = "\u001B[35m";
+    public static final String CYAN = "\u001B[36m";
+
+    private final StringBuilder frame = new StringBuilder(4096);
+    private final WritableByteChannel out;
+    private final CharsetEncoder encoder;
+    private ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private boolean ansi = true;
+    private boolean compact;
+    // last text shown for each section id, only kept in compact mode
+    private String[] lastSections = new String[8];
+    private int sectionId = -1;
+    private int sectionStart;
+    private long bytesWritten;
+    // what the current screen shows, e.g. a room
+    private Object screenKey;
+
+    public FrameRenderer(WritableByteChannel out, Charset charset) {
+        this.out = out;
+        this.encoder = charset.newEncoder()
+                              .onMalformedInput(CodingErrorAction.REPLACE)
+                              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    // renders to the process's stdout, bypassing System.out's per-line flushing
+    public static FrameRenderer stdout() {
+        return new FrameRenderer(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), Charset.defaultCharset());
+    }
+
+    public boolean isAnsi() {
+        return ansi;
+    }
+
+    public void setAnsi(boolean ansi) {
+        this.ansi = ansi;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+        forgetSections(0);
+    }
+
+    // total bytes written by flush(), for measuring output volume
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public void beginSection(int id) {
+        sectionId = id;
+        sectionStart = frame.length();
+    }
+
+    // closes the current section; returns false if compact mode dropped it as unchanged
+    public boolean endSection() {
+        int id = sectionId;
+        sectionId = -1;
+        if (!compact) return true;
+        if (id >= lastSections.length) lastSections = Arrays.copyOf(lastSections, Math.max(id + 1, lastSections.length * 2));
+        String last = lastSections[id];
+        if (last != null && sameAsFrame(last, sectionStart)) {
+            frame.setLength(sectionStart);
+            return false;
+        }
+        lastSections[id] = frame.substring(sectionStart);
+        return true;
+    }
+
+    // records what the screen is about and returns whether that changed since the last call
+    public boolean changeScreen(Object key) {
+        boolean changed = key != screenKey;
+        screenKey = key;
+        return changed;
+    }
+
+    // like endSection, but a changed section is cut down to its first headerLines lines plus the
+    // lines that weren't in it last time
+    public boolean endSectionByLine(int headerLines) {
+        int id = sectionId;
+        sectionId = -1;
+        if (!compact) return true;
+        if (id >= lastSections.length) lastSections = Arrays.copyOf(lastSections, Math.max(id + 1, lastSections.length * 2));
+        String last = lastSections[id];
+        String now = frame.substring(sectionStart);
+        if (now.equals(last)) {
+            frame.setLength(sectionStart);
+            return false;
+        }
+        lastSections[id] = now;
+        if (last == null) return true;
+        Set<String> shown = new HashSet<>(Arrays.asList(last.split("\n", -1)));
+        frame.setLength(sectionStart);
+        String[] lines = now.split("\n", -1);
+        for (int i = 0; i < lines.length - 1; i++) {
+            if (i < headerLines || !shown.contains(lines[i])) frame.append(lines[i]).append('\n');
+        }
+        frame.append(lines[lines.length - 1]);
+        return true;
+    }
+
+    public void forgetSection(int id) {
+        if (id < lastSections.length) lastSections[id] = null;
+    }
+
+    // sections from this id up are shown again in full the next time they are rendered
+    public void forgetSections(int fromId) {
+        for (int i = fromId; i < lastSections.length; i++) lastSections[i] = null;
+    }
+
+    public FrameRenderer color(String code) {
+        if (ansi) frame.append(code);
+        return this;
+    }
+
+    public FrameRenderer text(String s) {
+        frame.append(s);
+        return this;
+    }
+
+    public FrameRenderer text(int n) {
+        frame.append(n);
+        return this;
+    }
+
+    public FrameRenderer line(String s) {
+        frame.append(s).append('\n');
+        return this;
+    }
+
+    public FrameRenderer line() {
+        frame.append('\n');
+        return this;
+    }
+
+    // writes everything composed since the last flush in one go and starts a new frame
+    public void flush() {
+        if (frame.length() == 0) return;
+        // anything still sitting in System.out belongs before this frame
+        System.out.flush();
+        encoder.reset();
+        bytes.clear();
+        CharBuffer in = CharBuffer.wrap(frame);
+        while (true) {
+            CoderResult result = encoder.encode(in, bytes, true);
+            if (result.isOverflow()) grow();
+            else break;
+        }
+        while (encoder.flush(bytes).isOverflow()) grow();
+        bytes.flip();
+        bytesWritten += bytes.remaining();
+        try {
+            while (bytes.hasRemaining()) out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write frame", e);
+        }
+        frame.setLength(0);
+    }
+
+    private boolean sameAsFrame(String last, int start) {
+        int length = frame.length() - start;
+        if (last.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (frame.charAt(start + i) != last.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void grow() {
+        ByteBuffer bigger = ByteBuffer.allocate(bytes.capacity() * 2);
+        bytes.flip();
+        bigger.put(bytes);
+        bytes = bigger;
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+// per-session event bus for things that happen during play. listener arrays are sized when the bus
+// is created and each event type has a single event object that is refilled on every publish,
+// so dispatching during a turn allocates nothing. a listener may publish in turn; those nested
+// events get their own objects so the one being dispatched isn't overwritten
+public class GameEvents {
+
+    public enum Type {
+        ENTITY_DEFEATED,
+        ITEM_ADDED,
+        ITEM_PICKED_UP,
+        ROOM_ENTERED,
+        PORTAL_ADVANCED,
+        DOOR_UNLOCKED
+    }
+
+    // only valid for the duration of onEvent; copy anything a listener wants to keep
+    public static final class Event {
+        private final Type type;
+        private Entity entity;
+        private Item item;
+        private Room room;
+        private keyDoor door;
+
+        private Event(Type type) {
+            this.type = type;
+        }
+
+        public Type getType() { return type; }
+        public Entity getEntity() { return entity; }
+        public Item getItem() { return item; }
+        public Room getRoom() { return room; }
+        public keyDoor getDoor() { return door; }
+    }
+
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final int DEFAULT_LISTENERS = 4;
+
+    private final Listener[][] listeners = new Listener[TYPES.length][];
+    private final int[] listenerCounts = new int[TYPES.length];
+    private final Event[] events = new Event[TYPES.length];
+    // how many dispatches are running, more than one when a listener publishes
+    private int depth;
+
+    public GameEvents() {
+        this(DEFAULT_LISTENERS);
+    }
+
+    public GameEvents(int listenersPerType) {
+        for (Type type : TYPES) {
+            listeners[type.ordinal()] = new Listener[listenersPerType];
+            events[type.ordinal()] = new Event(type);
+        }
+    }
+
+    public void subscribe(Type type, Listener listener) {
+        int t = type.ordinal();
+        if (listenerCounts[t] == listeners[t].length) {
+            listeners[t] = Arrays.copyOf(listeners[t], Math.max(1, listenerCounts[t] * 2));
+        }
+        listeners[t][listenerCounts[t]++] = listener;
+    }
+
+    public void subscribeAll(Listener listener) {
+        for (Type type : TYPES) subscribe(type, listener);
+    }
+
+    public void entityDefeated(Entity entity) {
+        Event e = event(Type.ENTITY_DEFEATED);
+        e.entity = entity;
+        dispatch(e);
+    }
+
+    public void itemAdded(Item item) {
+        Event e = event(Type.ITEM_ADDED);
+        e.item = item;
+        dispatch(e);
+    }
+
+    public void itemPickedUp(Item item, Room room) {
+        Event e = event(Type.ITEM_PICKED_UP);
+        e.item = item;
+        e.room = room;
+        dispatch(e);
+    }
+
+    public void roomEntered(Room room) {
+        Event e = event(Type.ROOM_ENTERED);
+        e.room = room;
+        dispatch(e);
+    }
+
+    public void portalAdvanced(Room room) {
+        Event e = event(Type.PORTAL_ADVANCED);
+        e.room = room;
+        dispatch(e);
+    }
+
+    public void doorUnlocked(keyDoor door) {
+        Event e = event(Type.DOOR_UNLOCKED);
+        e.door = door;
+        dispatch(e);
+    }
+
+    private Event event(Type type) {
+        return depth == 0 ? events[type.ordinal()] : new Event(type);
+    }
+
+    private void dispatch(Event event) {
+        int t = event.type.ordinal();
+        Listener[] list = listeners[t];
+        depth++;
+        try {
+            for (int i = 0, n = listenerCounts[t]; i < n; i++) list[i].onEvent(event);
+        } finally {
+            depth--;
+            // don't keep game objects reachable from the bus between turns
+            event.entity = null;
+            event.item = null;
+            event.room = null;
+            event.door = null;
+        }
+    }
+}
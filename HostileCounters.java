@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// live counts of a level's undefeated hostiles, kept up to date by the entities themselves
+// so win conditions don't have to walk every room each turn
+class HostileCounters {
+    private int remaining;
+    // undefeated hostiles per case-folded monster name
+    private final Map<String, int[]> aliveByName = new HashMap<>();
+    // the name of every hostile the generator placed, in room order, so a boss can be picked
+    // without building lazy rooms
+    private final List<String> placedNames = new ArrayList<>();
+
+    void placed(String name) {
+        placedNames.add(name);
+        spawned(name);
+    }
+
+    int placedCount() {
+        return placedNames.size();
+    }
+
+    String placedName(int index) {
+        return placedNames.get(index);
+    }
+
+    void spawned(String name) {
+        remaining++;
+        counter(name)[0]++;
+    }
+
+    void defeated(String name) {
+        remaining--;
+        counter(name)[0]--;
+    }
+
+    int remainingHostiles() {
+        return remaining;
+    }
+
+    int aliveCount(String name) {
+        int[] count = aliveByName.get(name.toLowerCase(Locale.ROOT));
+        return count == null ? 0 : count[0];
+    }
+
+    private int[] counter(String name) {
+        return aliveByName.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new int[1]);
+    }
+}
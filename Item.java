@@ -1,69 +1,26 @@
 public class Item {
-    private String name;
-    private String description;
+    // shared, immutable stats; only the pickup flag is per instance
+    private ItemTemplate template;
     private boolean isPickedUp;
-    private boolean isUsable;
-    private boolean isRanged;
-    private boolean isMelee;    
-    private boolean isMagic;    
-    private int healthFX;
-    private int attackFX;
 
-    private int stealthFX;
-    private String type;
-    private int defenseFX;
-    private int magicFX; 
-    private int rangeFX;   
-    private int enduranceFX;  
-    
+    public Item(ItemTemplate template) {
+        this.template = template;
+    }
+
     public Item(String name, String description, boolean isUsable, boolean isRanged, boolean isMelee, boolean isMagic,
                 int healthFX, int attackFX, int stealthFX, String type, int defenseFX, int magicFX, int rangeFX, int enduranceFX) {
-        this.name = name;
-        this.description = description;
-        this.isUsable = isUsable;
-        this.isRanged = isRanged;
-        this.isMelee = isMelee;
-        this.isMagic = isMagic;
-        this.healthFX = healthFX;
-        this.attackFX = attackFX;
-        this.stealthFX = stealthFX;
-        this.type = type;
-        this.defenseFX = defenseFX;
-        this.magicFX = magicFX;
-        this.enduranceFX = enduranceFX;
+        this(new ItemTemplate(name, description, isUsable, isRanged, isMelee, isMagic,
+                              healthFX, attackFX, stealthFX, type, defenseFX, magicFX, rangeFX, enduranceFX));
     }
 
     public Item(String name, String description, boolean isUsable, boolean isRanged, boolean isMelee, boolean isMagic,
                 int healthFX, int attackFX, int stealthFX, String type, int defenseFX, int magicFX, int enduranceFX) {
-        this.name = name;
-        this.description = description;
-        this.isUsable = isUsable;
-        this.isRanged = isRanged;
-        this.isMelee = isMelee;
-        this.isMagic = isMagic;
-        this.healthFX = healthFX;
-        this.attackFX = attackFX;
-        this.stealthFX = stealthFX;
-        this.type = type;
-        this.defenseFX = defenseFX;
-        this.magicFX = magicFX;
-        this.enduranceFX = enduranceFX;
+        this(name, description, isUsable, isRanged, isMelee, isMagic, healthFX, attackFX, stealthFX, type, defenseFX, magicFX, 0, enduranceFX);
     }
 
     public Item(String name, String description, boolean isUsable, boolean isRanged, boolean isMelee, boolean isMagic,
                 int healthFX, int attackFX, int stealthFX, String type, int defenseFX, int magicFX) {
-        this.name = name;
-        this.description = description;
-        this.isUsable = isUsable;
-        this.isRanged = isRanged;
-        this.isMelee = isMelee;
-        this.isMagic = isMagic;
-        this.healthFX = healthFX;
-        this.attackFX = attackFX;
-        this.stealthFX = stealthFX;
-        this.type = type;
-        this.defenseFX = defenseFX;
-        this.magicFX = magicFX;
+        this(name, description, isUsable, isRanged, isMelee, isMagic, healthFX, attackFX, stealthFX, type, defenseFX, magicFX, 0, 0);
     }
 
     public Item(String name, String description, boolean isUsable, boolean isRanged, int healthFX, int attackFX) {
@@ -82,30 +39,34 @@ public class Item {
         this(name, description, isUsable, false, true, false, healthFX, attackFX, 0, "misc", 0, 0);
     }
 
-    public String getName() { return name; }
-    public String getDescription() { return description; }
-    public boolean isUsable() { return isUsable; }
+    public ItemTemplate getTemplate() { return template; }
+    public String getName() { return template.getName(); }
+    public String getDescription() { return template.getDescription(); }
+    public boolean isUsable() { return template.isUsable(); }
     public boolean isPickedUp() { return isPickedUp; }
     public void setPickedUp(boolean pickedUp) { isPickedUp = pickedUp; }
-    public int getHealthFX() { return healthFX; }
-    public int getAttackFX() { return attackFX; }
-    public int getRangedFX() { return rangeFX; }
-    public void setRangedFX(int rangeFX) { this.rangeFX = rangeFX; }
-    public void setHealthFX(int healthFX) { this.healthFX = healthFX; }
-    public void setAttackFX(int attackFX) { this.attackFX = attackFX; }
-    public boolean isRanged() { return isRanged; }
-    public void setRanged(boolean ranged) { isRanged = ranged; }
-    public boolean isMelee() { return isMelee; }
-    public void setMelee(boolean melee) { isMelee = melee; }
-    public boolean isMagic() { return isMagic; }
-    public void setMagic(boolean magic) { isMagic = magic; }
-    public int getStealthFX() { return stealthFX; }
-    public String getType() { return type; }
-    public int getDefenseFX() { return defenseFX; }
-    public void setDefenseFX(int defenseFX) { this.defenseFX = defenseFX; }
-    public int getMagicFX() { return magicFX; }
-    public void setMagicFX(int magicFX) { this.magicFX = magicFX; }
-    public int getEnduranceFX() { return enduranceFX; }
-    public void setEnduranceFX(int enduranceFX) { this.enduranceFX = enduranceFX; }
-    
+    public int getHealthFX() { return template.getHealthFX(); }
+    public int getAttackFX() { return template.getAttackFX(); }
+    public int getRangedFX() { return template.getRangedFX(); }
+    public boolean isRanged() { return template.isRanged(); }
+    public boolean isMelee() { return template.isMelee(); }
+    public boolean isMagic() { return template.isMagic(); }
+    public int getStealthFX() { return template.getStealthFX(); }
+    public String getType() { return template.getType(); }
+    public int getDefenseFX() { return template.getDefenseFX(); }
+    public int getMagicFX() { return template.getMagicFX(); }
+    public int getEnduranceFX() { return template.getEnduranceFX(); }
+    public void addEffectsTo(StatSheet target, int factor) { template.addEffectsTo(target, factor); }
+
+    // setters give this item its own copy of the template so other instances are unaffected
+    public void setRangedFX(int rangeFX) { template = template.withStats(isRanged(), isMelee(), isMagic(), getHealthFX(), getAttackFX(), getDefenseFX(), getMagicFX(), rangeFX, getEnduranceFX()); }
+    public void setHealthFX(int healthFX) { template = template.withStats(isRanged(), isMelee(), isMagic(), healthFX, getAttackFX(), getDefenseFX(), getMagicFX(), getRangedFX(), getEnduranceFX()); }
+    public void setAttackFX(int attackFX) { template = template.withStats(isRanged(), isMelee(), isMagic(), getHealthFX(), attackFX, getDefenseFX(), getMagicFX(), getRangedFX(), getEnduranceFX()); }
+    public void setRanged(boolean ranged) { template = template.withStats(ranged, isMelee(), isMagic(), getHealthFX(), getAttackFX(), getDefenseFX(), getMagicFX(), getRangedFX(), getEnduranceFX()); }
+    public void setMelee(boolean melee) { template = template.withStats(isRanged(), melee, isMagic(), getHealthFX(), getAttackFX(), getDefenseFX(), getMagicFX(), getRangedFX(), getEnduranceFX()); }
+    public void setMagic(boolean magic) { template = template.withStats(isRanged(), isMelee(), magic, getHealthFX(), getAttackFX(), getDefenseFX(), getMagicFX(), getRangedFX(), getEnduranceFX()); }
+    public void setDefenseFX(int defenseFX) { template = template.withStats(isRanged(), isMelee(), isMagic(), getHealthFX(), getAttackFX(), defenseFX, getMagicFX(), getRangedFX(), getEnduranceFX()); }
+    public void setMagicFX(int magicFX) { template = template.withStats(isRanged(), isMelee(), isMagic(), getHealthFX(), getAttackFX(), getDefenseFX(), magicFX, getRangedFX(), getEnduranceFX()); }
+    public void setEnduranceFX(int enduranceFX) { template = template.withStats(isRanged(), isMelee(), isMagic(), getHealthFX(), getAttackFX(), getDefenseFX(), getMagicFX(), getRangedFX(), enduranceFX); }
+
 }
@@ -0,0 +1,82 @@
+// immutable item blueprint shared by every Item built from it
+public class ItemTemplate {
+    private final String name;
+    private final String description;
+    private final String type;
+    private final boolean isUsable;
+    private final boolean isRanged;
+    private final boolean isMelee;
+    private final boolean isMagic;
+    private final int healthFX;
+    private final int attackFX;
+    private final int stealthFX;
+    private final int defenseFX;
+    private final int magicFX;
+    private final int rangeFX;
+    private final int enduranceFX;
+    // the same effects laid out as a stat sheet, added to or subtracted from the wearer on (un)equip
+    private final StatSheet effects = new StatSheet();
+
+    public ItemTemplate(String name, String description, boolean isUsable, boolean isRanged, boolean isMelee, boolean isMagic,
+                        int healthFX, int attackFX, int stealthFX, String type, int defenseFX, int magicFX, int rangeFX, int enduranceFX) {
+        this.name = name;
+        this.description = description;
+        this.type = type;
+        this.isUsable = isUsable;
+        this.isRanged = isRanged;
+        this.isMelee = isMelee;
+        this.isMagic = isMagic;
+        this.healthFX = healthFX;
+        this.attackFX = attackFX;
+        this.stealthFX = stealthFX;
+        this.defenseFX = defenseFX;
+        this.magicFX = magicFX;
+        this.rangeFX = rangeFX;
+        this.enduranceFX = enduranceFX;
+        effects.set(StatSheet.MAX_HEALTH, healthFX);
+        effects.set(StatSheet.ATTACK, attackFX);
+        effects.set(StatSheet.RANGED, rangeFX);
+        effects.set(StatSheet.MAGIC, magicFX);
+        effects.set(StatSheet.STEALTH, stealthFX);
+        effects.set(StatSheet.DEFENSE, defenseFX);
+        effects.set(StatSheet.ENDURANCE, enduranceFX);
+    }
+
+    // blueprint items are usable melee items with only health, attack and defense effects
+    public ItemTemplate(String name, String description, String type, int healthFX, int attackFX, int defenseFX) {
+        this(name, description, true, false, true, false, healthFX, attackFX, 0, type, defenseFX, 0, 0, 0);
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public String getType() { return type; }
+    public boolean isUsable() { return isUsable; }
+    public boolean isRanged() { return isRanged; }
+    public boolean isMelee() { return isMelee; }
+    public boolean isMagic() { return isMagic; }
+    public int getHealthFX() { return healthFX; }
+    public int getAttackFX() { return attackFX; }
+    public int getStealthFX() { return stealthFX; }
+    public int getDefenseFX() { return defenseFX; }
+    public int getMagicFX() { return magicFX; }
+    public int getRangedFX() { return rangeFX; }
+    public int getEnduranceFX() { return enduranceFX; }
+
+    // adds the effects to a stat sheet, or with factor -1 takes them off again. the sheet itself is
+    // shared by every item of this template, so it never leaves this class
+    public void addEffectsTo(StatSheet target, int factor) {
+        target.addScaled(effects, factor);
+    }
+
+    // copy with different combat flags and effects, used when a single item is modified
+    ItemTemplate withStats(boolean isRanged, boolean isMelee, boolean isMagic, int healthFX, int attackFX,
+                           int defenseFX, int magicFX, int rangeFX, int enduranceFX) {
+        return new ItemTemplate(name, description, isUsable, isRanged, isMelee, isMagic,
+                                healthFX, attackFX, stealthFX, type, defenseFX, magicFX, rangeFX, enduranceFX);
+    }
+
+    // builds a fresh item instance from this template
+    public Item newItem() {
+        return new Item(this);
+    }
+}
@@ -0,0 +1,99 @@
+import java.io.Closeable;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+// builds the next level on a worker thread while the current one is being played
+public class LevelPipeline implements Closeable {
+
+    private static class Prefetched {
+        final int level;
+        final long epoch;
+        final Main.LevelData data;
+
+        Prefetched(int level, long epoch, Main.LevelData data) {
+            this.level = level;
+            this.epoch = epoch;
+            this.data = data;
+        }
+    }
+
+    private final IntFunction<Main.LevelData> factory;
+    private final ExecutorService worker;
+    // holds at most one finished level, so a transition is just a reference handoff
+    private final BlockingQueue<Prefetched> ready = new ArrayBlockingQueue<>(1);
+    private Future<?> pending;
+    private int pendingLevel = -1;
+    // bumped on every cancel so late results from a cancelled task are dropped
+    private long epoch;
+
+    public LevelPipeline(IntFunction<Main.LevelData> factory) {
+        this.factory = factory;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "level-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public synchronized void prefetch(int level) {
+        cancelPending();
+        long taskEpoch = epoch;
+        pendingLevel = level;
+        pending = worker.submit(() -> {
+            Main.LevelData data = factory.apply(level);
+            synchronized (this) {
+                if (taskEpoch == epoch) ready.offer(new Prefetched(level, taskEpoch, data));
+            }
+        });
+    }
+
+    // returns the prefetched level, waiting for it if it is still being built, or builds it here
+    public Main.LevelData take(int level) {
+        Future<?> task;
+        synchronized (this) {
+            if (pending == null || pendingLevel != level) {
+                cancelPending();
+                return factory.apply(level);
+            }
+            task = pending;
+        }
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            // fall through and build it synchronously
+        }
+        synchronized (this) {
+            Prefetched p = ready.poll();
+            boolean usable = task == pending && p != null && p.level == level && p.epoch == epoch;
+            pending = null;
+            pendingLevel = -1;
+            if (usable) return p.data;
+        }
+        return factory.apply(level);
+    }
+
+    // content changed: rebuild whatever level was queued so it uses the new data
+    public synchronized void invalidate() {
+        if (pendingLevel >= 0) prefetch(pendingLevel);
+    }
+
+    public synchronized void cancel() {
+        cancelPending();
+    }
+
+    private void cancelPending() {
+        epoch++;
+        if (pending != null) pending.cancel(true);
+        pending = null;
+        pendingLevel = -1;
+        ready.clear();
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// weighted loot for one monster template, compiled once into a vose alias table so every roll is
+// one random column plus one coin flip, however many entries there are. entries are item templates,
+// or null for "nothing drops"; items are only built from a rolled template when the monster dies
+public class LootTable {
+    // default weights for drops that give a rarity tier instead of an explicit weight
+    static final String[] RARITIES = {"common", "uncommon", "rare", "epic", "legendary"};
+    static final int[] RARITY_WEIGHTS = {100, 40, 10, 3, 1};
+
+    private final ItemTemplate[] outcomes;
+    private final int[] weights;
+    private final int rolls;
+    // column i keeps outcomes[i] with probability prob[i] and otherwise gives outcomes[alias[i]]
+    private final double[] prob;
+    private final int[] alias;
+
+    public LootTable(ItemTemplate[] outcomes, int[] weights, int rolls) {
+        if (outcomes.length == 0 || outcomes.length != weights.length) {
+            throw new IllegalArgumentException("Loot table needs one weight per entry");
+        }
+        if (rolls < 0) throw new IllegalArgumentException("Loot rolls can't be negative");
+        long total = 0;
+        for (int w : weights) {
+            if (w <= 0) throw new IllegalArgumentException("Loot weights must be positive");
+            total += w;
+        }
+        int n = outcomes.length;
+        this.outcomes = outcomes.clone();
+        this.weights = weights.clone();
+        this.rolls = rolls;
+        this.prob = new double[n];
+        this.alias = new int[n];
+
+        // scale so the average column is 1, then pair each short column with a tall one
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0, largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double) weights[i] * n / total;
+            if (scaled[i] < 1.0) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            prob[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) small[smallCount++] = l;
+            else large[largeCount++] = l;
+        }
+        // whatever is left is 1 up to rounding
+        while (largeCount > 0) prob[large[--largeCount]] = 1.0;
+        while (smallCount > 0) prob[small[--smallCount]] = 1.0;
+    }
+
+    // weight for a rarity name, or -1 if it isn't one
+    static int rarityWeight(String rarity) {
+        String r = rarity.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < RARITIES.length; i++) {
+            if (RARITIES[i].equals(r)) return RARITY_WEIGHTS[i];
+        }
+        return -1;
+    }
+
+    // one roll; null means the roll came up empty
+    public ItemTemplate sample(SplittableRandom rand) {
+        int i = rand.nextInt(prob.length);
+        return rand.nextDouble() < prob[i] ? outcomes[i] : outcomes[alias[i]];
+    }
+
+    // how many times the table is rolled when the monster dies
+    public int getRolls() {
+        return rolls;
+    }
+
+    public int size() {
+        return outcomes.length;
+    }
+
+    public ItemTemplate getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LootTable[rolls=").append(rolls);
+        for (int i = 0; i < outcomes.length; i++) {
+            sb.append(", ").append(outcomes[i] == null ? "nothing" : outcomes[i].getName()).append('=').append(weights[i]);
+        }
+        return sb.append(']').toString();
+    }
+}
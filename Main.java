@@ -3,38 +3,69 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.io.IOException;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class Main {
 
+    static final String BLUEPRINT_FILE = "C:\\Users\\ruizg\\Documents\\IB CS Projects\\Java\\RPGRoom\\src\\room_blueprints.json";
+
     static RandomLevelGenerator randomLevelGenerator;
+    static BlueprintReloader blueprintReloader;
+    static LevelPipeline levelPipeline = new LevelPipeline(Main::loadLevel);
+    // every level, win condition and battle of a session derives from this seed
+    static long sessionSeed = System.nanoTime();
+    // state changes of the session are published here; listeners are registered once in main
+    static final GameEvents events = new GameEvents();
+    static final SessionStats sessionStats = new SessionStats();
+    // room screens, the minimap, help and inventory are composed here and written once per frame;
+    // colors start off when NO_COLOR is set
+    static final FrameRenderer renderer = FrameRenderer.stdout();
+    // 0 shows every visited room on the minimap, otherwise only those this many moves away
+    static int miniMapHops = 0;
+    static {
+        renderer.setAnsi(System.getenv("NO_COLOR") == null);
+    }
 
     static class LevelData {
+        long seed;
+        // independent streams so battles never shift the win condition roll and vice versa
+        SplittableRandom winConditionRng;
+        SplittableRandom combatRng;
+        // undefeated hostiles, overall and per name, maintained as entities are defeated
+        HostileCounters hostiles;
+        // multiplies the stats of every hostile as its room is built; the boss win condition doubles it
+        int hostileScaling = 1;
+        // every room of the level including the portal, indexed by Room.getId()
+        Room[] rooms;
         Room startingRoom;
         Room portalRoom;
         java.util.HashMap<Room, keyDoor> lockedDoors;
         LevelRequirement requirement;
         boolean advanced;
+        // debug lines about the level, shown when the player gets it rather than when it was built,
+        // which for a prefetched level is while the previous one is being played
+        final List<String> debugNotes = new ArrayList<>(2);
     }
 
     // randomly generate levels
     private static LevelData loadLevel(int level) {
         if (randomLevelGenerator == null) {
             try {
-                randomLevelGenerator = new RandomLevelGenerator("C:\\Users\\ruizg\\Documents\\IB CS Projects\\Java\\RPGRoom\\src\\room_blueprints.json");
+                randomLevelGenerator = RandomLevelGenerator.open(BLUEPRINT_FILE);
+                randomLevelGenerator.setEvents(events);
             } catch (IOException e) {
                 System.out.println("Failed to load random level generator: " + e.getMessage());
                 return null;
             }
         }
-        LevelData data = randomLevelGenerator.generateLevel(level);
+        LevelData data = randomLevelGenerator.generateLevel(sessionSeed, level);
         data.requirement = randomWinCondition(data);
         return data;
     }
 
     // generate a random win condition for the level
-    private static LevelRequirement randomWinCondition(LevelData data) {
-        Random rand = new Random();
+    static LevelRequirement randomWinCondition(LevelData data) {
+        SplittableRandom rand = data.winConditionRng;
         int pick = rand.nextInt(4);
         switch (pick) {
             case 0:
@@ -45,19 +76,20 @@ public class Main {
                 return new EnterPortalRequirement();
             case 2:
                 // defeat a random boss (random enemy from a random room) (make boss double as hard as the rest of the enemies)
-                java.util.List<Entity> bosses = new java.util.ArrayList<>();
-                for (Room r : getAllRooms(data.startingRoom, new java.util.HashSet<>())) {
-                    for (Entity e : r.getCharacters()) {
-                        if (e.isHostile()){
-                            e.setAttack(e.getAttack() * 2);
-                            e.setHealth(e.getHealth() * 2);
-                            bosses.add(e);
+                // picked from the names the generator placed, so rooms the player hasn't reached stay unbuilt
+                HostileCounters hostiles = data.hostiles;
+                if (hostiles.placedCount() > 0) {
+                    String bossName = hostiles.placedName(rand.nextInt(hostiles.placedCount()));
+                    data.hostileScaling = 2;
+                    // rooms built already (the starting room, or every room when rooms aren't lazy)
+                    // missed the scaling
+                    for (Room r : data.rooms) {
+                        if (!r.isMaterialized()) continue;
+                        for (Entity e : r.getCharacters()) {
+                            if (e.isHostile()) e.scaleStats(2);
                         }
                     }
-                }
-                if (!bosses.isEmpty()) {
-                    Entity boss = bosses.get(rand.nextInt(bosses.size()));
-                    return new DefeatBossRequirement(boss.getName());
+                    return new DefeatBossRequirement(bossName);
                 }
                 return new DefeatAllHostilesRequirement();
             default:
@@ -68,6 +100,19 @@ public class Main {
         }
     }
 
+    // per-session tallies, fed by the event bus
+    static class SessionStats implements GameEvents.Listener {
+        private final int[] counts = new int[GameEvents.Type.values().length];
+
+        public void onEvent(GameEvents.Event event) {
+            counts[event.getType().ordinal()]++;
+        }
+
+        int count(GameEvents.Type type) {
+            return counts[type.ordinal()];
+        }
+    }
+
     // a level requirement interface for specific win conditions to inherit
     interface LevelRequirement {
         boolean isMet(Player player, Room currentRoom, LevelData levelData);
@@ -88,13 +133,11 @@ public class Main {
         DefeatBossRequirement(String bossName) {
             this.bossName = bossName;
         }
+        String getBossName() {
+            return bossName;
+        }
         public boolean isMet(Player player, Room currentRoom, LevelData levelData) {
-            for (Room r : getAllRooms(levelData.startingRoom, new java.util.HashSet<>())) {
-                for (Entity e : r.getCharacters()) {
-                    if (e.getName().equalsIgnoreCase(bossName) && !e.isDefeated()) return false;
-                }
-            }
-            return true;
+            return levelData.hostiles.aliveCount(bossName) == 0;
         }
         public String getDescription() {
             return "Defeat the boss: " + bossName;
@@ -103,12 +146,7 @@ public class Main {
     // Win Condition (Defeat All Hostiles)
     static class DefeatAllHostilesRequirement implements LevelRequirement {
         public boolean isMet(Player player, Room currentRoom, LevelData levelData) {
-            for (Room r : getAllRooms(levelData.startingRoom, new java.util.HashSet<>())) {
-                for (Entity e : r.getCharacters()) {
-                    if (e.isHostile() && !e.isDefeated()) return false;
-                }
-            }
-            return true;
+            return levelData.hostiles.remainingHostiles() == 0;
         }
         public String getDescription() {
             return "Defeat all hostile entities.";
@@ -137,50 +175,143 @@ public class Main {
         }
     }
 
-    // lists all rooms by traversing through connections and adding them to a set (similar to a python tuple)
-    private static java.util.Set<Room> getAllRooms(Room start, java.util.Set<Room> visited) {
-        if (start == null || visited.contains(start)) return visited;
-        visited.add(start);
-        for (Room r : start.getExits()) getAllRooms(r, visited);
-        return visited;
+    private static void printDebugNotes(LevelData data) {
+        for (String note : data.debugNotes) System.out.println(note);
     }
 
     // prints a breadcrumb style "minimap" to make traversing rooms more accessible 
-    private static void printMiniMap(Room currentRoom, java.util.Set<Room> visitedRooms) {
-        System.out.println("\n\u001B[36mMinimap:\u001B[0m");
-        for (Room r : visitedRooms) {
-            String marker = (r == currentRoom) ? "\u001B[32m[You]\u001B[0m " : "      ";
-            String exits = "";
-            for (Room ex : r.getExits()) {
-                exits += " -> " + ex.getName();
-            }
-            System.out.println(marker + r.getName() + exits);
+    private static void printMiniMap(Room currentRoom, MiniMap miniMap) {
+        renderMiniMap(renderer, miniMap, currentRoom, miniMapHops);
+        renderer.flush();
+    }
+
+    // these render methods only compose into the frame; whoever shows the screen flushes it
+    static void renderMiniMap(FrameRenderer renderer, MiniMap miniMap, Room currentRoom, int hops) {
+        renderer.beginSection(Section.MINIMAP.ordinal());
+        renderer.line().color(FrameRenderer.CYAN).text(hops > 0 ? "Minimap (within " + hops + (hops == 1 ? " move):" : " moves):") : "Minimap:").color(FrameRenderer.RESET).line();
+        miniMap.render(renderer, currentRoom, hops);
+        // compact mode keeps the heading and only the rooms whose line changed
+        renderer.endSectionByLine(2);
+    }
+
+    // parts of the room screen that compact mode can leave out when they haven't changed
+    enum Section { WIN_CONDITION, ROOM, HEALTH, ITEMS, ENTITIES, EXITS, COMMANDS, MINIMAP }
+
+    // the per-turn screen: win condition, room, what's in it, exits, commands and the prompt
+    static void renderRoom(FrameRenderer r, LevelRequirement requirement, Room room, Player player) {
+        // a new room always shows its whole contents, even if they read the same as the last room's
+        if (r.changeScreen(room)) {
+            r.forgetSection(Section.ROOM.ordinal());
+            r.forgetSection(Section.ITEMS.ordinal());
+            r.forgetSection(Section.ENTITIES.ordinal());
+            r.forgetSection(Section.EXITS.ordinal());
+        }
+        r.beginSection(Section.WIN_CONDITION.ordinal());
+        r.color(FrameRenderer.YELLOW).text("Win Condition: ").text(requirement.getDescription()).color(FrameRenderer.RESET).line();
+        r.endSection();
+        r.beginSection(Section.ROOM.ordinal());
+        r.color(FrameRenderer.YELLOW).line().text("=== ").text(room.getName()).text(" ===").color(FrameRenderer.RESET).line();
+        r.line(room.getDescription());
+        r.endSection();
+        r.beginSection(Section.HEALTH.ordinal());
+        r.color(FrameRenderer.GREEN).text("Health: ").text(player.getHealth()).color(FrameRenderer.RESET).line();
+        r.endSection();
+
+        r.beginSection(Section.ITEMS.ordinal());
+        r.line().color(FrameRenderer.BLUE).text("Items in the room:").color(FrameRenderer.RESET).line();
+        int shown = 0;
+        for (Item item : room.getItems()) {
+            if (item == null || item.isPickedUp()) continue;
+            r.text("  (").text(++shown).text(") ").text(item.getName()).text(" - ").line(item.getDescription());
+        }
+        if (shown == 0) r.line("  (none)");
+        r.endSection();
+
+        r.beginSection(Section.ENTITIES.ordinal());
+        r.line().color(FrameRenderer.RED).text("Entities here:").color(FrameRenderer.RESET).line();
+        shown = 0;
+        for (Entity e : room.getCharacters()) {
+            if (e.isDefeated()) continue;
+            r.text("  (").text(++shown).text(") ").text(e.getName()).text(" - ").text(e.getDesc());
+            r.line(e.isHostile() ? " [Hostile]" : "");
         }
+        if (shown == 0) r.line("  (none)");
+        r.endSection();
+
+        r.beginSection(Section.EXITS.ordinal());
+        r.line().color(FrameRenderer.CYAN).text("Exits:").color(FrameRenderer.RESET).line();
+        Room[] exits = room.getExits();
+        for (int i = 0; i < exits.length; i++) r.text("  (").text(i + 1).text(") ").line(exits[i].getName());
+        if (exits.length == 0) r.line("  (none)");
+        r.endSection();
+
+        r.beginSection(Section.COMMANDS.ordinal());
+        r.line().color(FrameRenderer.MAGENTA)
+         .text("Commands: move [#], pickup [#], battle [#], inventory, help, quit, equip [item], unequip [item], throw [item]")
+         .color(FrameRenderer.RESET).line();
+        r.endSection();
+        r.text("> ");
     }
 
     // Main game loop
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && Benchmarks.run(args)) return;
+        if (args.length > 1 && args[0].equals("seed")) {
+            sessionSeed = Long.parseLong(args[1]);
+        }
+        // endless labyrinth: very large levels whose rooms are only built when entered
+        boolean labyrinth = args.length > 0 && args[0].equals("labyrinth");
+        System.out.println("[DEBUG] Seed: " + sessionSeed);
+
         Scanner scanner = new Scanner(System.in);
+        ConsoleCombat console = new ConsoleCombat(scanner);
+        CombatEngine combat = new CombatEngine(console, console);
         Player player = new Player();
+        player.setEvents(events);
+        // hoarder mode: a much bigger bag
+        if (args.length > 0 && args[0].equals("hoarder")) {
+            player.setInventoryCapacity(args.length > 1 ? Integer.parseInt(args[1]) : 500);
+        }
+        events.subscribeAll(sessionStats);
         boolean playing = true;
         int level = 1;
 
         // Initialize the random level generator
         try {
-            randomLevelGenerator = new RandomLevelGenerator("C:\\Users\\ruizg\\Documents\\IB CS Projects\\Java\\RPGRoom\\src\\room_blueprints.json");
+            randomLevelGenerator = RandomLevelGenerator.open(BLUEPRINT_FILE);
+            randomLevelGenerator.setEvents(events);
+            if (labyrinth) {
+                randomLevelGenerator.setLazyRooms(true);
+                miniMapHops = 2;
+                int minRooms = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+                randomLevelGenerator.setLevelSize(minRooms, args.length > 2 ? Integer.parseInt(args[2]) : Math.max(minRooms, 2_000));
+            }
         } catch (IOException e) {
             System.out.println("Warning: Could not load random level generator. No levels will be available.");
             randomLevelGenerator = null;
         }
 
+        // pick up blueprint edits without restarting; the next level uses the new data
+        if (randomLevelGenerator != null) {
+            try {
+                blueprintReloader = new BlueprintReloader(randomLevelGenerator, BLUEPRINT_FILE);
+                blueprintReloader.setOnReload(levelPipeline::invalidate);
+                blueprintReloader.start();
+            } catch (IOException e) {
+                System.out.println("Warning: Blueprint hot-reload is unavailable: " + e.getMessage());
+            }
+        }
+
         LevelData levelData = loadLevel(level);
         if (levelData == null) {
             System.out.println("No levels available. Exiting.");
             return;
         }
+        printDebugNotes(levelData);
+        levelPipeline.prefetch(level + 1);
         Room currentRoom = levelData.startingRoom;
         java.util.HashMap<Room, keyDoor> lockedDoors = levelData.lockedDoors;
-        java.util.Set<Room> visitedRooms = new java.util.HashSet<>();
+        MiniMap miniMap = new MiniMap();
 
         // Start game (with colors to enhance the readability)
         System.out.println("\u001B[35m" + "\n=====================================" + "\u001B[0m");
@@ -194,60 +325,10 @@ public class Main {
 
         while (playing && player.isAlive()) {
 
-            System.out.println("\u001B[33mWin Condition: " + levelData.requirement.getDescription() + "\u001B[0m");
-
-            System.out.println("\u001B[33m\n=== " + currentRoom.getName() + " ===\u001B[0m");
-            System.out.println(currentRoom.getDescription());
-            System.out.println("\u001B[32mHealth: " + player.getHealth() + "\u001B[0m");
-
-            // print all items in a room
             Item[] items = currentRoom.getItems();
-            boolean hasItems = false;
-            System.out.println("\n\u001B[34mItems in the room:\u001B[0m");
-            int itemDisplayIdx = 1;
-            for (int i = 0; i < items.length; i++) {
-                if (items[i] == null) continue;
-                if (!items[i].isPickedUp()) {
-                    System.out.println("  (" + itemDisplayIdx + ") " + items[i].getName() + " - " + items[i].getDescription());
-                    itemDisplayIdx++;
-                }
-            }
-            if (itemDisplayIdx == 1)
-                System.out.println("  (none)");
-
-            // print all entities in a room
             Entity[] entities = currentRoom.getCharacters();
-            boolean hasEntities = false;
-            System.out.println("\n\u001B[31mEntities here:\u001B[0m");
-            int entityDisplayIdx = 1;
-            for (int i = 0; i < entities.length; i++) {
-                if (!entities[i].isDefeated()) {
-                    System.out.println("  (" + entityDisplayIdx + ") " + entities[i].getName() + " - " + entities[i].getDesc() +
-                            (entities[i].isHostile() ? " [Hostile]" : ""));
-                    entityDisplayIdx++;
-                }
-            }
-            if (entityDisplayIdx == 1)
-                System.out.println("  (none)");
-
-            // print all exits
-            Room[] exits = currentRoom.getExits();
-            int visibleExitIdx = 1;
-
-            System.out.println("\n\u001B[36mExits:\u001B[0m");
-            for (int i = 0; i < exits.length; i++) {
-            Room exit = exits[i];
-            System.out.println("  (" + visibleExitIdx + ") " + exit.getName());
-            visibleExitIdx++;
-            }
-            if (visibleExitIdx == 1) {
-                System.out.println("  (none)");
-            }
-
-            // show command help
-            System.out.println("\n\u001B[35mCommands: move [#], pickup [#], battle [#], inventory, help, quit, equip [item], unequip [item], throw [item]\u001B[0m");
-
-            System.out.print("> ");
+            renderRoom(renderer, levelData.requirement, currentRoom, player);
+            renderer.flush();
             String input = scanner.nextLine().trim().toLowerCase();
 
             // Split chained commands by ; or &&
@@ -297,14 +378,7 @@ public class Main {
                             if (lockedDoors.containsKey(nextRoom)) {
                                 keyDoor door = lockedDoors.get(nextRoom);
                                 if (door.isLocked()) {
-                                    boolean hasKey = false;
-                                    for (Item i : player.getInventory()) {
-                                        if (i.getName().equalsIgnoreCase("Portal Key")) {
-                                            hasKey = true;
-                                            break;
-                                        }
-                                    }
-                                    if (hasKey) {
+                                    if (player.hasItemNamed("Portal Key")) {
                                         System.out.println("You use the Portal Key to unlock the door!");
                                         door.unlock();
                                     } else {
@@ -313,197 +387,35 @@ public class Main {
                                     }
                                 }
                             }
-                            // finalize move to next room and print minimap
+                            // finalize move to next room and print minimap; lazy levels build the room on first entry
+                            currentRoom.compact();
+                            nextRoom.materialize();
                             currentRoom = nextRoom;
-                            visitedRooms.add(currentRoom);
+                            miniMap.visit(currentRoom);
+                            events.roomEntered(currentRoom);
 
                             // Start battle immediately for each autoattack entity
                             for (Entity e : currentRoom.getCharacters()) {
                                 if (e.isHostile() && e.isAutoAttack() && e.isAlive()) {
                                     System.out.println(e.getName() + " catches you off guard and attacks!");
-                                    int distance = 1; 
-                                    boolean inBattle = true;
-                                    java.util.Random rand = new java.util.Random();
-                                    boolean playerFirst = player.getStealth() >= e.getInitiative();
-                                    if (!playerFirst) {
-                                        System.out.println(e.getName() + " strikes first!");
-                                    }
-                                    while (player.isAlive() && e.isAlive() && inBattle) {
-                                        System.out.println("\nDistance to " + e.getName() + ": " + (distance == 3 ? "Far" : distance == 2 ? "Mid" : "Close"));
-                                        System.out.println("Your health: " + player.getHealth() + " | " + e.getName() + " health: " + e.getHealth());
-                                        System.out.println("Choose action: melee, ranged, magic, use, show inventory, move closer, move away, run");                                        String action = scanner.nextLine().trim().toLowerCase();
-                                        boolean playerTurn = true;
-                                        switch (action) {
-                                            case "show":
-                                            case "show inventory":
-                                                invList = new ArrayList<>(player.getInventory());
-                                                equippedListFlat = player.getEquippedFlat();
-                                                Main.showInventorySummary(player, invList, equippedListFlat);
-                                                break;
-                                            case "melee":
-                                                if (distance == 1) {
-                                                    boolean hasMelee = false;
-                                                    for (Item i : player.getInventory()) {
-                                                        if (i.isMelee()) { hasMelee = true; break; }
-                                                    }
-                                                    if (hasMelee) {
-                                                        int dmg = player.getMeleeAttack();
-                                                        System.out.println("You strike with a melee attack for " + dmg + " damage!");
-                                                        e.takeDamage(dmg);
-                                                        playerTurn = false;
-                                                    } else {
-                                                        System.out.println("You have no melee weapon equipped!");
-                                                    }
-                                                } else {
-                                                    System.out.println("You are too far for a melee attack!");
-                                                }
-                                                break;
-                                            case "ranged":
-                                                if (distance >= 2) {
-                                                    boolean hasRanged = false;
-                                                    for (Item i : player.getInventory()) {
-                                                        if (i.isRanged()) { hasRanged = true; break; }
-                                                    }
-                                                    if (hasRanged) {
-                                                        int dmg = player.getRangedAttack();
-                                                        System.out.println("You fire a ranged attack for " + dmg + " damage!");
-                                                        e.takeDamage(dmg);
-                                                        playerTurn = false;
-                                                    } else {
-                                                        System.out.println("You have no ranged weapon equipped!");
-                                                    }
-                                                } else {
-                                                    System.out.println("You are too close for a ranged attack!");
-                                                }
-                                                break;
-                                            case "magic":
-                                                boolean hasMagic = false;
-                                                for (Item i : player.getInventory()) {
-                                                    if (i.isMagic()) { hasMagic = true; break; }
-                                                }
-                                                if (hasMagic) {
-                                                    int dmg = player.getMagicAttack();
-                                                    System.out.println("You cast a magic attack for " + dmg + " damage!");
-                                                    e.takeDamage(dmg);
-                                                    playerTurn = false;
-                                                } else {
-                                                    System.out.println("You have no magic item equipped!");
-                                                }
-                                                break;
-                                            case "move closer":
-                                            case "closer":
-                                                if (distance > 1) {
-                                                    distance--;
-                                                    System.out.println("You move closer to " + e.getName() + ".");
-                                                    playerTurn = false;
-                                                } else {
-                                                    System.out.println("You are already at close range!");
-                                                }
-                                                break;
-                                            case "move away":
-                                            case "away":
-                                                if (distance < 3) {
-                                                    distance++;
-                                                    System.out.println("You move farther from " + e.getName() + ".");
-                                                    playerTurn = false;
-                                                } else {
-                                                    System.out.println("You are already at the farthest distance!");
-                                                }
-                                                break;
-                                            case "run":
-                                            case "escape":
-                                                int escapeChance = distance * 35 + 10;
-                                                if (rand.nextInt(100) < escapeChance) {
-                                                    System.out.println("You successfully escaped!");
-                                                    inBattle = false;
-                                                    break;
-                                                } else {
-                                                    System.out.println("You failed to escape!");
-                                                    playerTurn = false;
-                                                }
-                                                break;
-                                            case "use":
-                                                List<Item> usableItems = new ArrayList<>();
-                                                for (int i = 0; i < player.getInventory().size(); i++) {
-                                                    Item item = player.getInventory().get(i);
-                                                    if (item.isUsable()) {
-                                                        usableItems.add(item);
-                                                        System.out.println("  (" + (usableItems.size()) + ") " + item.getName() + ": " + item.getDescription());
-                                                    }
-                                                }
-                                                if (usableItems.isEmpty()) {
-                                                    System.out.println("You have no usable items!");
-                                                    break;
-                                                }
-                                                System.out.print("Which item to use? (number or 'cancel'): ");  
-                                                String useInput = scanner.nextLine().trim().toLowerCase();
-                                                if (useInput.equals("cancel")) break;
-                                                try {
-                                                    int useIdx = Integer.parseInt(useInput) - 1;
-                                                    if (useIdx >= 0 && useIdx < usableItems.size()) {
-                                                        Item toUse = usableItems.get(useIdx);
-                                                        if (player.useItem(toUse.getName())) {
-                                                            System.out.println("You used " + toUse.getName() + "!");
-                                                            playerTurn = false;
-                                                        } else {
-                                                            System.out.println("Failed to use " + toUse.getName() + ".");
-                                                        }
-                                                    } else {
-                                                        System.out.println("Invalid item number.");
-                                                    }
-                                                } catch (NumberFormatException ex) {
-                                                    System.out.println("Invalid input.");
-                                                }
-                                                break;
-                                            default:
-                                                System.out.println("Unknown action. Try: melee, ranged, magic, move closer, move away, run");
-                                        }
-                                        if (!playerTurn && e.isAlive() && inBattle) {
-                                            if (distance == 1 && e.canMelee()) {
-                                                System.out.println(e.getName() + " attacks you for " + e.getAttack() + " damage!");
-                                                player.takeDamage(e.getAttack());
-                                            } else if (distance >= 2 && e.canRanged()) {
-                                                System.out.println(e.getName() + " fires a ranged attack for " + e.getRangeAttack() + " damage!");
-                                                player.takeDamage(e.getRangeAttack());
-                                            } else if (e.canMagic()) {
-                                                System.out.println(e.getName() + " casts a spell for " + e.getMagicAttack() + " damage!");
-                                                player.takeDamage(e.getMagicAttack());
-                                            } else {
-                                                System.out.println(e.getName() + " moves closer!");
-                                                distance--;
-                                            }
-                                        }
-                                        if (!e.isAlive()) {
-                                            List<Drop> drops = e.getDrops();
-                                            for (Drop drop : drops) {
-                                                if (Math.random() < drop.getChance()) {
-                                                    currentRoom.addItem(drop.getItem());
-                                                    System.out.println("You found a " + drop.getItem() + "!");
-                                                }
-                                            }
-                                            e.setDefeated(true);
-                                            System.out.println("You defeated " + e.getName() + "!");
-                                        }
-                                        if (!player.isAlive()) {
-                                            System.out.println("You have been defeated!");
-                                            playing = false;
-                                            break;
-                                        }
-                                    }
+                                    CombatEngine.Outcome outcome = combat.fight(player, e, currentRoom, CombatEngine.Style.AMBUSH, levelData.combatRng.split());
+                                    if (outcome == CombatEngine.Outcome.PLAYER_DEFEATED) playing = false;
                                     if (!playing || !player.isAlive()) break;
                                     if (levelData.requirement.isMet(player, currentRoom, levelData)) {
                                         System.out.println("\n\u001B[33mLevel complete! Requirement met: " + levelData.requirement.getDescription() + "\u001B[0m");
                                         level++;
-                                        LevelData nextLevel = loadLevel(level);
+                                        LevelData nextLevel = levelPipeline.take(level);
                                         if (nextLevel == null) {
                                             System.out.println("You have beaten all available levels! Thanks for playing!");
                                             break;
                                         }
                                         currentRoom = nextLevel.startingRoom;
                                         levelData = nextLevel;
+                                        printDebugNotes(levelData);
+                                        levelPipeline.prefetch(level + 1);
                                         lockedDoors = nextLevel.lockedDoors;
-                                        visitedRooms.clear();
-                                        visitedRooms.add(currentRoom);
+                                        miniMap.clear();
+                                        miniMap.visit(currentRoom);
                                         System.out.println("\n\u001B[31mYou have entered Level " + level + "!\u001B[0m");
                                         continue;
                                     }
@@ -538,6 +450,7 @@ public class Main {
                                 Item picked = availableItems.get(itemIndex);
                                 player.addItem(picked);
                                 picked.setPickedUp(true);
+                                events.itemPickedUp(picked, currentRoom);
                                 System.out.println("You picked up the " + picked.getName() + "!");
                             } else {
                                 System.out.println("Invalid item.");
@@ -570,187 +483,8 @@ public class Main {
                             if (entityIndex >= 0 && entityIndex < availableEntities.size()) {
                                 Entity enemy = availableEntities.get(entityIndex);
                                 System.out.println("You engage in battle with " + enemy.getName() + "!");
-                                int distance = 3;
-                                boolean inBattle = true;
-                                java.util.Random rand = new java.util.Random();
-                                boolean playerFirst = player.getStealth() >= enemy.getInitiative();
-                                if (!playerFirst) {
-                                    System.out.println(enemy.getName() + " notices you first and attacks!");
-                                    player.takeDamage(enemy.getAttack());
-                                }
-                                while (player.isAlive() && enemy.isAlive() && inBattle) {
-                                    System.out.println("\nDistance to " + enemy.getName() + ": " + (distance == 3 ? "Far" : distance == 2 ? "Mid" : "Close"));
-                                    System.out.println("Your health: " + player.getHealth() + " | " + enemy.getName() + " health: " + enemy.getHealth());
-                                    System.out.println("Choose action: melee, ranged, magic, move closer, move away, run");
-                                    System.out.print("> ");
-                                    String action = scanner.nextLine().trim().toLowerCase();
-                                    boolean playerTurn = true;
-                                    switch (action) {
-                                        case "melee":
-                                            if (distance == 1) {
-                                                boolean hasMelee = false;
-                                                for (Item i : player.getInventory()) {
-                                                    if (i.isMelee()) { hasMelee = true; break; }
-                                                }
-                                                if (hasMelee) {
-                                                    int dmg = player.getMeleeAttack();
-                                                    System.out.println("You strike with a melee attack for " + dmg + " damage!");
-                                                    enemy.takeDamage(dmg);
-                                                    playerTurn = false;
-                                                } else {
-                                                    System.out.println("You have no melee weapon equipped!");
-                                                }
-                                            } else {
-                                                System.out.println("You are too far for a melee attack!");
-                                            }
-                                            break;
-                                        case "ranged":
-                                            if (distance >= 2) {
-                                                boolean hasRanged = false;
-                                                for (Item i : player.getInventory()) {
-                                                    if (i.isRanged()) { hasRanged = true; break; }
-                                                }
-                                                if (hasRanged) {
-                                                    int dmg = player.getRangedAttack();
-                                                    System.out.println("You fire a ranged attack for " + dmg + " damage!");
-                                                    enemy.takeDamage(dmg);
-                                                    playerTurn = false;
-                                                } else {
-                                                    System.out.println("You have no ranged weapon equipped!");
-                                                }
-                                            } else {
-                                                System.out.println("You are too close for a ranged attack!");
-                                            }
-                                            break;
-                                        case "magic":
-                                            boolean hasMagic = false;
-                                            for (Item i : player.getInventory()) {
-                                                if (i.isMagic()) { hasMagic = true; break; }
-                                            }
-                                            if (hasMagic) {
-                                                int dmg = player.getMagicAttack();
-                                                System.out.println("You cast a magic attack for " + dmg + " damage!");
-                                                enemy.takeDamage(dmg);
-                                                playerTurn = false;
-                                            } else {
-                                                System.out.println("You have no magic item equipped!");
-                                            }
-                                            break;
-                                        case "move closer":
-                                        case "closer":
-                                            if (distance > 1) {
-                                                distance--;
-                                                System.out.println("You move closer to " + enemy.getName() + ".");
-                                                playerTurn = false;
-                                            } else {
-                                                System.out.println("You are already at close range!");
-                                            }
-                                            break;
-                                        case "move away":
-                                        case "away":
-                                            if (distance < 3) {
-                                                distance++;
-                                                System.out.println("You move farther from " + enemy.getName() + ".");
-                                                playerTurn = false;
-                                            } else {
-                                                System.out.println("You are already at the farthest distance!");
-                                            }
-                                            break;
-                                        case "run":
-                                        case "escape":
-                                            int escapeChance = distance * 35 + 10;
-                                            if (rand.nextInt(100) < escapeChance) {
-                                                System.out.println("You successfully escaped!");
-                                                inBattle = false;
-                                                break;
-                                            } else {
-                                                System.out.println("You failed to escape!");
-                                                playerTurn = false;
-                                            }
-                                            break;
-                                        case "use":
-                                            List<Item> usableItems = new ArrayList<>();
-                                            for (int i = 0; i < player.getInventory().size(); i++) {
-                                                Item item = player.getInventory().get(i);
-                                                if (item.isUsable()) {
-                                                    usableItems.add(item);
-                                                    System.out.println("  (" + (usableItems.size()) + ") " + item.getName() + ": " + item.getDescription());
-                                                }
-                                            }
-                                            if (usableItems.isEmpty()) {
-                                                System.out.println("You have no usable items!");
-                                                break;
-                                            }
-                                            System.out.print("Which item to use? (number or 'cancel'): ");
-                                            String useInput = scanner.nextLine().trim().toLowerCase();
-                                            if (useInput.equals("cancel")) break;
-                                            try {
-                                                int useIdx = Integer.parseInt(useInput) - 1;
-                                                if (useIdx >= 0 && useIdx < usableItems.size()) {
-                                                    Item toUse = usableItems.get(useIdx);
-                                                    if (player.useItem(toUse.getName())) {
-                                                        System.out.println("You used " + toUse.getName() + "!");
-                                                        playerTurn = false;
-                                                    } else {
-                                                        System.out.println("Failed to use " + toUse.getName() + ".");
-                                                    }
-                                                } else {
-                                                    System.out.println("Invalid item number.");
-                                                }
-                                            } catch (NumberFormatException ex) {
-                                                System.out.println("Invalid input.");
-                                            }
-                                            break;
-                                        default:
-                                            System.out.println("Unknown action. Try: melee, ranged, magic, move closer, move away, run");
-                                    }
-                                    if (enemy.isAlive() && inBattle) {
-                                        boolean acted = false;
-                                        if (distance == 1 && enemy.canMelee()) {
-                                            System.out.println(enemy.getName() + " attacks you for " + enemy.getAttack() + " damage!");
-                                            player.takeDamage(enemy.getAttack());
-                                            acted = true;
-                                        }
-                                        else if (distance >= 2 && enemy.canRanged()) {
-                                            System.out.println(enemy.getName() + " fires a ranged attack for " + enemy.getRangeAttack() + " damage!");
-                                            player.takeDamage(enemy.getRangeAttack());
-                                            acted = true;
-                                        }
-                                        else if (enemy.canMagic()) {
-                                            System.out.println(enemy.getName() + " casts a spell for " + enemy.getMagicAttack() + " damage!");
-                                            player.takeDamage(enemy.getMagicAttack());
-                                            acted = true;
-                                        }
-                                        if (!acted) {
-                                            if (enemy.canMelee() && distance > 1) {
-                                                distance--;
-                                                System.out.println(enemy.getName() + " moves closer!");
-                                            } else if (enemy.canRanged() && distance < 2) {
-                                                distance++;
-                                                System.out.println(enemy.getName() + " moves farther away!");
-                                            } else {
-                                                System.out.println(enemy.getName() + " waits for an opportunity...");
-                                            }
-                                        }
-                                    }
-                                    if (!enemy.isAlive()) {
-                                            List<Drop> drops = enemy.getDrops();
-                                            System.out.println("drops:"+drops);
-                                            for (Drop drop : drops) {
-                                                if (Math.random() < drop.getChance()) {
-                                                    currentRoom.addItem(drop.getItem());
-                                                    System.out.println("You found a " + drop.getItem() + "!");
-                                                }
-                                            }
-                                            enemy.setDefeated(true);
-                                            System.out.println("You defeated " + enemy.getName() + "!");
-                                        }
-                                    if (!player.isAlive()) {
-                                        System.out.println("You have been defeated!");
-                                        playing = false;
-                                        break;
-                                    }
-                                }
+                                CombatEngine.Outcome outcome = combat.fight(player, enemy, currentRoom, CombatEngine.Style.ENGAGE, levelData.combatRng.split());
+                                if (outcome == CombatEngine.Outcome.PLAYER_DEFEATED) playing = false;
                             } else {
                                 System.out.println("Invalid entity or not hostile.");
                             }
@@ -761,16 +495,18 @@ public class Main {
                         if (levelData.requirement.isMet(player, currentRoom, levelData)) {
                             System.out.println("\n\u001B[33mLevel complete! Requirement met: " + levelData.requirement.getDescription() + "\u001B[0m");
                             level++;
-                            LevelData nextLevel = loadLevel(level);
+                            LevelData nextLevel = levelPipeline.take(level);
                             if (nextLevel == null) {
                                 System.out.println("You have beaten all available levels! Thanks for playing!");
                                 break;
                             }
                             currentRoom = nextLevel.startingRoom;
                             levelData = nextLevel;
+                            printDebugNotes(levelData);
+                            levelPipeline.prefetch(level + 1);
                             lockedDoors = nextLevel.lockedDoors;
-                            visitedRooms.clear();
-                            visitedRooms.add(currentRoom);
+                            miniMap.clear();
+                            miniMap.visit(currentRoom);
                             System.out.println("\n\u001B[31mYou have entered Level " + level + "!\u001B[0m");
                             continue;
                         }
@@ -864,6 +600,38 @@ public class Main {
                         showInventorySummary(player, invList, equippedListFlat);
                         break;
 
+                    case "compact":
+                        renderer.setCompact(parts.length < 2 ? !renderer.isCompact() : !parts[1].equals("off"));
+                        System.out.println("Compact display " + (renderer.isCompact() ? "on: unchanged parts of the screen are skipped, 'look' shows everything." : "off."));
+                        break;
+                    case "minimap":
+                        try {
+                            miniMapHops = parts.length < 2 || parts[1].equals("all") ? 0 : Math.max(0, Integer.parseInt(parts[1]));
+                            System.out.println(miniMapHops == 0 ? "The minimap shows every visited room." : "The minimap shows visited rooms within " + miniMapHops + " moves.");
+                        } catch (NumberFormatException e) {
+                            System.out.println("Usage: minimap [all|#]");
+                        }
+                        break;
+                    case "look":
+                    case "l":
+                        renderer.forgetSections(0);
+                        break;
+                    case "colors":
+                    case "color":
+                        renderer.setAnsi(parts.length < 2 ? !renderer.isAnsi() : !parts[1].equals("off"));
+                        System.out.println("Colors " + (renderer.isAnsi() ? "on." : "off."));
+                        break;
+                    case "autoequip":
+                        String goal = parts.length > 1 ? parts[1].toLowerCase() : "melee";
+                        if (!Player.LOADOUT_GOALS.contains(goal)) {
+                            System.out.println("Usage: autoequip [melee|ranged|magic|defense|stealth]");
+                            break;
+                        }
+                        int equippedCount = player.autoEquip(goal);
+                        System.out.println("You equipped the best " + goal + " loadout (" + equippedCount + " items).");
+                        showInventorySummary(player, new ArrayList<>(player.getInventory()), player.getEquippedFlat());
+                        break;
+
                     case "unequip":
                         if (parts.length < 2) {
                             System.out.println("Usage: unequip [item number]");
@@ -986,42 +754,48 @@ public class Main {
 
                     case "help":
                     case "h":
-                        System.out.println("\n\u001B[35m=== Help: RPGRoom Commands ===\u001B[0m");
-                        System.out.println("General Commands:");
-                        System.out.println("  move [#]           - Move to an exit by its number.");
-                        System.out.println("  pickup [#]         - Pick up an item in the room by its number.");
-                        System.out.println("  battle [#]         - Battle a hostile entity by its number.");
-                        System.out.println("  inventory [type]   - Show your inventory. Add a type to filter (e.g., 'inventory potion').");
-                        System.out.println("  inspect [#]        - Show details for an item in your inventory.");
-                        System.out.println("  equip [#|last]     - Equip an item by its inventory number or the last picked up item.");
-                        System.out.println("  unequip [#]        - Unequip an equipped item by its equipped number.");
-                        System.out.println("  throw [# ...]      - Throw away one or more items by their inventory numbers.");
-                        System.out.println("  use [#|last|all type] - Use a consumable item by its number, 'last', or all of a type (e.g., 'use all potion').");
-                        System.out.println("  sort inventory [name|type|effect] - Sort your inventory alphabetically, by type, or by stat effect.");
-                        System.out.println("  advance            - Enter the portal to the next level.");
-                        System.out.println("  help               - Show this help message.");
-                        System.out.println("  quit               - Quit the game.");
-                        System.out.println();
-                        System.out.println("Battle Commands (when in combat):");
-                        System.out.println("  melee              - Attack with a melee weapon (close range only).");
-                        System.out.println("  ranged             - Attack with a ranged weapon (mid/far range).");
-                        System.out.println("  magic              - Attack with a magic item (any range, if available).");
-                        System.out.println("  move closer        - Move one step closer to the enemy.");
-                        System.out.println("  move away          - Move one step farther from the enemy.");
-                        System.out.println("  run                - Attempt to escape from battle.");
-                        System.out.println("  use                - Use a consumable item (e.g., potion) during battle.");
-                        System.out.println("  show inventory     - View your inventory and equipped items during battle.");
-                        System.out.println();
-                        System.out.println("Tips:");
-                        System.out.println("  - You can chain commands with ';' or '&&' (e.g., 'pickup 1; equip 1').");
-                        System.out.println("  - Use 'inspect [#]' to see item stats and effects.");
-                        System.out.println("  - Some rooms or doors require special items to access.");
-                        System.out.println("  - Equipping items can boost your stats, but you can only equip a limited number of each type.");
-                        System.out.println("  - Use consumables wisely during tough battles");
-                        System.out.println("  - Type 'inventory' often to keep track of your items and stats.");
-                        System.out.println("  - You can use the 'advance' command to enter the portal to the next level.");
-                        System.out.println("  - After picking up items, type 'inventory' to see the updated inventory list.");
-                        System.out.println("\u001B[35m==============================\u001B[0m");
+                        renderer.line().color(FrameRenderer.MAGENTA).text("=== Help: RPGRoom Commands ===").color(FrameRenderer.RESET).line();
+                        renderer.line("General Commands:");
+                        renderer.line("  move [#]           - Move to an exit by its number.");
+                        renderer.line("  pickup [#]         - Pick up an item in the room by its number.");
+                        renderer.line("  battle [#]         - Battle a hostile entity by its number.");
+                        renderer.line("  inventory [type]   - Show your inventory. Add a type to filter (e.g., 'inventory potion').");
+                        renderer.line("  inspect [#]        - Show details for an item in your inventory.");
+                        renderer.line("  equip [#|last]     - Equip an item by its inventory number or the last picked up item.");
+                        renderer.line("  unequip [#]        - Unequip an equipped item by its equipped number.");
+                        renderer.line("  autoequip [goal]   - Equip the best loadout for melee, ranged, magic, defense or stealth.");
+                        renderer.line("  throw [# ...]      - Throw away one or more items by their inventory numbers.");
+                        renderer.line("  use [#|last|all type] - Use a consumable item by its number, 'last', or all of a type (e.g., 'use all potion').");
+                        renderer.line("  sort inventory [name|type|effect] - Sort your inventory alphabetically, by type, or by stat effect.");
+                        renderer.line("  advance            - Enter the portal to the next level.");
+                        renderer.line("  help               - Show this help message.");
+                        renderer.line("  quit               - Quit the game.");
+                        renderer.line("  colors [on|off]    - Turn colored output on or off.");
+                        renderer.line("  compact [on|off]   - Only redraw the parts of the room screen that changed.");
+                        renderer.line("  look               - Show the whole room screen again.");
+                        renderer.line("  minimap [all|#]    - Show every visited room, or only those within # moves.");
+                        renderer.line();
+                        renderer.line("Battle Commands (when in combat):");
+                        renderer.line("  melee              - Attack with a melee weapon (close range only).");
+                        renderer.line("  ranged             - Attack with a ranged weapon (mid/far range).");
+                        renderer.line("  magic              - Attack with a magic item (any range, if available).");
+                        renderer.line("  move closer        - Move one step closer to the enemy.");
+                        renderer.line("  move away          - Move one step farther from the enemy.");
+                        renderer.line("  run                - Attempt to escape from battle.");
+                        renderer.line("  use                - Use a consumable item (e.g., potion) during battle.");
+                        renderer.line("  show inventory     - View your inventory and equipped items during battle.");
+                        renderer.line();
+                        renderer.line("Tips:");
+                        renderer.line("  - You can chain commands with ';' or '&&' (e.g., 'pickup 1; equip 1').");
+                        renderer.line("  - Use 'inspect [#]' to see item stats and effects.");
+                        renderer.line("  - Some rooms or doors require special items to access.");
+                        renderer.line("  - Equipping items can boost your stats, but you can only equip a limited number of each type.");
+                        renderer.line("  - Use consumables wisely during tough battles");
+                        renderer.line("  - Type 'inventory' often to keep track of your items and stats.");
+                        renderer.line("  - You can use the 'advance' command to enter the portal to the next level.");
+                        renderer.line("  - After picking up items, type 'inventory' to see the updated inventory list.");
+                        renderer.color(FrameRenderer.MAGENTA).text("==============================").color(FrameRenderer.RESET).line();
+                        renderer.flush();
                         break;
                     case "quit":
                     case "q":
@@ -1035,6 +809,7 @@ public class Main {
                             if (!levelData.advanced) {
                                 System.out.println("You step into the swirling portal...");
                                 levelData.advanced = true;
+                                events.portalAdvanced(currentRoom);
                             } else {
                                 System.out.println("You have already activated the portal.");
                             }
@@ -1048,22 +823,24 @@ public class Main {
                 if (!playing || !player.isAlive()) break;
             }
             
-            printMiniMap(currentRoom, visitedRooms);
+            printMiniMap(currentRoom, miniMap);
 
             if (levelData.requirement.isMet(player, currentRoom, levelData)) {
                 System.out.println("\n\u001B[33mLevel complete! Requirement met: " + levelData.requirement.getDescription() + "\u001B[0m");
                 level++;
                 player.setEndurance((int) (player.getEndurance()*1.5));
-                LevelData nextLevel = loadLevel(level);
+                LevelData nextLevel = levelPipeline.take(level);
                 if (nextLevel == null) {
                     System.out.println("You have beaten all available levels! Thanks for playing!");
                     break;
                 }
                 currentRoom = nextLevel.startingRoom;
                 levelData = nextLevel;
+                printDebugNotes(levelData);
+                levelPipeline.prefetch(level + 1);
                 lockedDoors = nextLevel.lockedDoors;
-                visitedRooms.clear();
-                visitedRooms.add(currentRoom);
+                miniMap.clear();
+                miniMap.visit(currentRoom);
                 System.out.println("\n\u001B[31mYou have entered Level " + level + "!\u001B[0m");
                 continue;
             }
@@ -1075,6 +852,11 @@ public class Main {
         if (!player.isAlive()) {
             System.out.println("Game Over");
         }
+        System.out.println("[DEBUG] Session: " + sessionStats.count(GameEvents.Type.ENTITY_DEFEATED) + " enemies defeated, "
+                           + sessionStats.count(GameEvents.Type.ITEM_PICKED_UP) + " items picked up, "
+                           + sessionStats.count(GameEvents.Type.ROOM_ENTERED) + " rooms entered");
+        levelPipeline.close();
+        if (blueprintReloader != null) blueprintReloader.close();
         scanner.close();
     }
 
@@ -1084,16 +866,7 @@ public class Main {
     }
 
     public Item getBestGearOfType(String type, Player player) {
-        Item best = null;
-        for (Item i : player.getInventory()) {
-            if (i.getType().equals(type)) {
-                if (best == null || i.getAttackFX() + i.getStealthFX() + i.getHealthFX() >
-                    best.getAttackFX() + best.getStealthFX() + best.getHealthFX()) {
-                    best = i;
-                }
-            }
-        }
-        return best;
+        return player.getBestGearOfType(type);
     }
 
     public boolean isRare(Item item) {
@@ -1104,40 +877,44 @@ public class Main {
     }
 
     static void showInventorySummary(Player player, List<Item> invList, List<Item> equippedListFlat) {
-        System.out.println("\n\u001B[32mInventory (" + invList.size() + "/20):\u001B[0m");
+        renderInventory(renderer, player, invList, equippedListFlat);
+        renderer.flush();
+    }
+
+    static void renderInventory(FrameRenderer r, Player player, List<Item> invList, List<Item> equippedListFlat) {
+        r.line().color(FrameRenderer.GREEN).text("Inventory (").text(invList.size()).text("/").text(player.getInventoryCapacity()).text("):")
+         .color(FrameRenderer.RESET).line();
         for (int i = 0; i < invList.size(); i++) {
             Item item = invList.get(i);
-            String stat = "";
-            String tags = "";
-            if (item.isMelee()) tags += " [Melee]";
-            if (item.isRanged()) tags += " [Ranged]";
-            if (item.isMagic()) tags += " [Magic]";
-            if (item.getAttackFX() != 0) stat += " ATK:" + item.getAttackFX();
-            if (item.getStealthFX() != 0) stat += " STL:" + item.getStealthFX();
-            if (item.getHealthFX() != 0) stat += " HP:" + item.getHealthFX();
-            if (item.getDefenseFX() != 0) stat += " DEF:" + item.getDefenseFX();
-            System.out.println("  (" + (i+1) + ") " + item.getName() + " [" + item.getType() + "]" + tags + stat);        }
-        if (invList.isEmpty()) System.out.println("  (empty)");
-        System.out.println("Equipped:");
+            r.text("  (").text(i + 1).text(") ").text(item.getName()).text(" [").text(item.getType()).text("]");
+            if (item.isMelee()) r.text(" [Melee]");
+            if (item.isRanged()) r.text(" [Ranged]");
+            if (item.isMagic()) r.text(" [Magic]");
+            appendEffects(r, item);
+            r.line();
+        }
+        if (invList.isEmpty()) r.line("  (empty)");
+        r.line("Equipped:");
         for (int i = 0; i < equippedListFlat.size(); i++) {
             Item item = equippedListFlat.get(i);
-            String stat = "";
-            if (item.getAttackFX() != 0) stat += " ATK:" + item.getAttackFX();
-            if (item.getStealthFX() != 0) stat += " STL:" + item.getStealthFX();
-            if (item.getHealthFX() != 0) stat += " HP:" + item.getHealthFX();
-            if (item.getDefenseFX() != 0) stat += " DEF:" + item.getDefenseFX();
-            System.out.println("  (" + (i+1) + ") " + item.getName() + " [" + item.getType() + "]" + stat);
+            r.text("  (").text(i + 1).text(") ").text(item.getName()).text(" [").text(item.getType()).text("]");
+            appendEffects(r, item);
+            r.line();
         }
-        if (equippedListFlat.isEmpty()) System.out.println("  (none)");
-        System.out.println(
-            "Health: " + player.getHealth() + "/" + player.getMaxHealth() +
-            " | Melee: " + player.getMeleeAttack() +
-            " | Ranged: " + player.getRangedAttack() +
-            " | Magic: " + player.getMagicAttack() +
-            " | Defense: " + player.getDefense() +
-            " | Stealth: " + player.getStealth()
-        );
-        System.out.println("Type 'inspect [#]', 'equip [#]', 'use [#]', 'throw [#]', or 'help' for options.");
+        if (equippedListFlat.isEmpty()) r.line("  (none)");
+        r.text("Health: ").text(player.getHealth()).text("/").text(player.getMaxHealth())
+         .text(" | Melee: ").text(player.getMeleeAttack())
+         .text(" | Ranged: ").text(player.getRangedAttack())
+         .text(" | Magic: ").text(player.getMagicAttack())
+         .text(" | Defense: ").text(player.getDefense())
+         .text(" | Stealth: ").text(player.getStealth()).line();
+        r.line("Type 'inspect [#]', 'equip [#]', 'use [#]', 'throw [#]', or 'help' for options.");
+    }
 
+    private static void appendEffects(FrameRenderer r, Item item) {
+        if (item.getAttackFX() != 0) r.text(" ATK:").text(item.getAttackFX());
+        if (item.getStealthFX() != 0) r.text(" STL:").text(item.getStealthFX());
+        if (item.getHealthFX() != 0) r.text(" HP:").text(item.getHealthFX());
+        if (item.getDefenseFX() != 0) r.text(" DEF:").text(item.getDefenseFX());
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// breadcrumb map of the rooms visited on a level, in the order they were first entered. a room's
+// line is built once when it is visited (exits don't change after generation), and the rendered map
+// is kept until a room is added, the player moves or the view changes
+public class MiniMap {
+    private final List<Room> rooms = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>();
+    private final Map<Room, Integer> index = new IdentityHashMap<>();
+
+    // the last render and what it was rendered for
+    private String cached;
+    private Room cachedCurrent;
+    private int cachedHops;
+    private boolean cachedAnsi;
+
+    // breadth-first scratch for the neighbourhood view, indexed by visit order
+    private int[] seen = new int[16];
+    private int[] queue = new int[16];
+    private int[] depth = new int[16];
+    private int epoch;
+
+    public void visit(Room room) {
+        if (index.containsKey(room)) return;
+        index.put(room, rooms.size());
+        rooms.add(room);
+        StringBuilder line = new StringBuilder(room.getName());
+        for (Room exit : room.getExits()) line.append(" -> ").append(exit.getName());
+        lines.add(line.toString());
+        cached = null;
+    }
+
+    public void clear() {
+        rooms.clear();
+        lines.clear();
+        index.clear();
+        cached = null;
+    }
+
+    public int size() {
+        return rooms.size();
+    }
+
+    public boolean contains(Room room) {
+        return index.containsKey(room);
+    }
+
+    // every visited room, or with hops > 0 only the visited rooms that many moves or fewer from the
+    // current one, walking through visited rooms only
+    public void render(FrameRenderer r, Room current, int hops) {
+        if (cached == null || current != cachedCurrent || hops != cachedHops || r.isAnsi() != cachedAnsi) {
+            StringBuilder sb = new StringBuilder();
+            if (hops > 0) appendNearby(sb, current, hops, r.isAnsi());
+            else for (int i = 0; i < rooms.size(); i++) appendLine(sb, i, current, r.isAnsi());
+            cached = sb.toString();
+            cachedCurrent = current;
+            cachedHops = hops;
+            cachedAnsi = r.isAnsi();
+        }
+        r.text(cached);
+    }
+
+    private void appendNearby(StringBuilder sb, Room current, int hops, boolean ansi) {
+        Integer start = index.get(current);
+        if (start == null) return;
+        int n = rooms.size();
+        if (seen.length < n) {
+            seen = new int[Math.max(n, seen.length * 2)];
+            queue = new int[seen.length];
+            depth = new int[seen.length];
+            epoch = 0;
+        }
+        epoch++;
+        int head = 0, tail = 0;
+        queue[tail] = start;
+        depth[tail++] = 0;
+        seen[start] = epoch;
+        while (head < tail) {
+            int at = queue[head];
+            int d = depth[head++];
+            appendLine(sb, at, current, ansi);
+            if (d == hops) continue;
+            for (Room exit : rooms.get(at).getExits()) {
+                Integer next = index.get(exit);
+                if (next == null || seen[next] == epoch) continue;
+                seen[next] = epoch;
+                queue[tail] = next;
+                depth[tail++] = d + 1;
+            }
+        }
+        if (tail < n) sb.append("      (").append(n - tail).append(" more visited rooms further away)\n");
+    }
+
+    private void appendLine(StringBuilder sb, int i, Room current, boolean ansi) {
+        if (rooms.get(i) != current) sb.append("      ");
+        else if (ansi) sb.append(FrameRenderer.GREEN).append("[You]").append(FrameRenderer.RESET).append(' ');
+        else sb.append("[You] ");
+        sb.append(lines.get(i)).append('\n');
+    }
+}
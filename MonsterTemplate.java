@@ -0,0 +1,90 @@
+// immutable monster blueprint, parsed once from room_blueprints.json
+public class MonsterTemplate {
+    private final String name;
+    private final String desc;
+    private final int baseHealth;
+    private final int baseAttack;
+    private final int healthScaling;
+    private final int attackScaling;
+    private final boolean canMelee;
+    private final boolean canRanged;
+    private final boolean canMagic;
+    private final int rangeAttack;
+    private final int magicAttack;
+    private final int initiative;
+    private final boolean autoAttack;
+    private final String[] drops;
+    // weighted loot: item names (null for an empty slot), their weights and rolls per kill
+    private final String[] lootItems;
+    private final int[] lootWeights;
+    private final int lootRolls;
+    // health and attack as stat sheets, so an entity's stats at a level are base + scaling * level
+    private final StatSheet base = new StatSheet();
+    private final StatSheet scaling = new StatSheet();
+
+    public MonsterTemplate(String name, String desc, int baseHealth, int baseAttack, int healthScaling, int attackScaling,
+                           boolean canMelee, boolean canRanged, boolean canMagic, int rangeAttack, int magicAttack,
+                           int initiative, boolean autoAttack, String[] drops) {
+        this(name, desc, baseHealth, baseAttack, healthScaling, attackScaling, canMelee, canRanged, canMagic,
+             rangeAttack, magicAttack, initiative, autoAttack, drops, new String[0], new int[0], 0);
+    }
+
+    public MonsterTemplate(String name, String desc, int baseHealth, int baseAttack, int healthScaling, int attackScaling,
+                           boolean canMelee, boolean canRanged, boolean canMagic, int rangeAttack, int magicAttack,
+                           int initiative, boolean autoAttack, String[] drops,
+                           String[] lootItems, int[] lootWeights, int lootRolls) {
+        this.name = name;
+        this.desc = desc;
+        this.baseHealth = baseHealth;
+        this.baseAttack = baseAttack;
+        this.healthScaling = healthScaling;
+        this.attackScaling = attackScaling;
+        this.canMelee = canMelee;
+        this.canRanged = canRanged;
+        this.canMagic = canMagic;
+        this.rangeAttack = rangeAttack;
+        this.magicAttack = magicAttack;
+        this.initiative = initiative;
+        this.autoAttack = autoAttack;
+        this.drops = drops;
+        this.lootItems = lootItems;
+        this.lootWeights = lootWeights;
+        this.lootRolls = lootRolls;
+        base.set(StatSheet.HEALTH, baseHealth);
+        base.set(StatSheet.ATTACK, baseAttack);
+        scaling.set(StatSheet.HEALTH, healthScaling);
+        scaling.set(StatSheet.ATTACK, attackScaling);
+    }
+
+    public String getName() { return name; }
+    public String getDesc() { return desc; }
+    public int getBaseHealth() { return baseHealth; }
+    public int getBaseAttack() { return baseAttack; }
+    public int getHealthScaling() { return healthScaling; }
+    public int getAttackScaling() { return attackScaling; }
+    public boolean canMelee() { return canMelee; }
+    public boolean canRanged() { return canRanged; }
+    public boolean canMagic() { return canMagic; }
+    public int getRangeAttack() { return rangeAttack; }
+    public int getMagicAttack() { return magicAttack; }
+    public int getInitiative() { return initiative; }
+    public boolean isAutoAttack() { return autoAttack; }
+    public String[] getDrops() { return drops; }
+    public String[] getLootItems() { return lootItems; }
+    public int[] getLootWeights() { return lootWeights; }
+    public int getLootRolls() { return lootRolls; }
+
+    public int healthAt(int level) {
+        return baseHealth + healthScaling * level;
+    }
+
+    public int attackAt(int level) {
+        return baseAttack + attackScaling * level;
+    }
+
+    public StatSheet statsAt(int level) {
+        StatSheet stats = base.copy();
+        stats.addScaled(scaling, level);
+        return stats;
+    }
+}
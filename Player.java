@@ -1,18 +1,19 @@
 import java.util.*;
 
 public class Player {
-    private int health = 30;
-    private int maxHealth = 30; 
-    private int attack = 5; 
-    private int rangedBase = 0; 
-    private int magicBase = 0;  
-    private int stealth = 0;
-    private int defense = 0;
+    // health, base attacks, stealth, defense, endurance and perception; equipped item effects are added in
+    private final StatSheet stats = new StatSheet();
     private String pClass = "";
     private static final int INVENTORY_CAPACITY = 20;
+    private int inventoryCapacity = INVENTORY_CAPACITY;
     private ArrayList<Item> inventory = new ArrayList<>();
-    int endurance = 20;
-    private int perception = 0;
+    // secondary indexes over inventory, kept in inventory order; only change them through
+    // addToInventory / removeFromInventory
+    private final Map<String, List<Item>> inventoryByName = new HashMap<>();
+    private final Map<String, List<Item>> inventoryByType = new HashMap<>();
+    private int meleeItems;
+    private int rangedItems;
+    private int magicItems;
 
     private static final Map<String, Integer> TYPE_LIMITS = Map.of(
         "cloak", 1,
@@ -25,121 +26,160 @@ public class Player {
     );
 
     private Map<String, List<Item>> equipped = new HashMap<>();
+    private GameEvents events;
+    // attack totals over the equipped items, rebuilt only after the equipment or base stats change
+    private boolean statsDirty = true;
+    private int meleeTotal;
+    private int rangedTotal;
+    private int magicTotal;
 
-    public Player() {}
+    public Player() {
+        stats.set(StatSheet.HEALTH, 30);
+        stats.set(StatSheet.MAX_HEALTH, 30);
+        stats.set(StatSheet.ATTACK, 5);
+        stats.set(StatSheet.ENDURANCE, 20);
+    }
+
+    public void setEvents(GameEvents events) { this.events = events; }
 
-    public int getHealth() { return health; }
-    public int getMaxHealth() { return maxHealth; } 
-    public int getAttack() { return attack; }
-    public int getStealth() { return stealth; }
-    public int getDefense() { return defense; }
+    public int getHealth() { return stats.get(StatSheet.HEALTH); }
+    public int getMaxHealth() { return stats.get(StatSheet.MAX_HEALTH); } 
+    public int getAttack() { return stats.get(StatSheet.ATTACK); }
+    public int getStealth() { return stats.get(StatSheet.STEALTH); }
+    public int getDefense() { return stats.get(StatSheet.DEFENSE); }
     public ArrayList<Item> getInventory() { return inventory; }
     public Map<String, List<Item>> getEquipped() { return equipped; }
-    public int getInventoryCapacity() { return INVENTORY_CAPACITY; }
+    public int getInventoryCapacity() { return inventoryCapacity; }
+    public void setInventoryCapacity(int capacity) { this.inventoryCapacity = capacity; }
+    public boolean hasItemNamed(String name) { return findItem(name) != null; }
+    public boolean hasMeleeItem() { return meleeItems > 0; }
+    public boolean hasRangedItem() { return rangedItems > 0; }
+    public boolean hasMagicItem() { return magicItems > 0; }
     public String getpClass() { return pClass; }
     public void setpClass(String pClass) { this.pClass = pClass; }
     public void applypClassFX(String pClass) {
+        statsDirty = true;
         switch (pClass) {
             case "Warrior":
-                attack = (int)(attack + 5);
+                stats.add(StatSheet.ATTACK, 5);
                 break;
             case "Archer":
-                rangedBase = (int)(rangedBase + 5);
+                stats.add(StatSheet.RANGED, 5);
                 break;
             case "Mage":
-                magicBase = (int)(magicBase + 5);
+                stats.add(StatSheet.MAGIC, 5);
                 break;
     }}
-    public void setEndurance(int endurance) { this.endurance = endurance; }
-    public int getEndurance() { return endurance; }
-    public void increaseIndurance(int amount) { this.endurance += amount; }
-    public void setPerception(int perception) { this.perception = perception; }
-    public int getPerception() { return perception; }
-    public void increasePerception(int amount) { this.perception += amount; }   
+    public void setEndurance(int endurance) { stats.set(StatSheet.ENDURANCE, endurance); }
+    public int getEndurance() { return stats.get(StatSheet.ENDURANCE); }
+    public void increaseIndurance(int amount) { stats.add(StatSheet.ENDURANCE, amount); }
+    public void setPerception(int perception) { stats.set(StatSheet.PERCEPTION, perception); }
+    public int getPerception() { return stats.get(StatSheet.PERCEPTION); }
+    public void increasePerception(int amount) { stats.add(StatSheet.PERCEPTION, amount); }   
     public int rollPerception() {
-        return (int)(Math.random() * 20) + 1 + perception; 
+        return (int)(Math.random() * 20) + 1 + getPerception(); 
     }
 
     public void takeDamage(int dmg) { 
-        int reduced = Math.max(1, dmg - defense);
-        health -= reduced;
+        int reduced = absorbDamage(dmg);
         System.out.println("Your defense absorbs " + (dmg - reduced) + " damage (" + reduced + " taken)");
     }
-    public boolean isAlive() { return health > 0; }
+    // applies a hit after defense and returns the damage actually taken, without any output
+    int absorbDamage(int dmg) {
+        int reduced = Math.max(1, dmg - getDefense());
+        stats.add(StatSheet.HEALTH, -reduced);
+        return reduced;
+    }
+    public boolean isAlive() { return getHealth() > 0; }
     public void setHealth(int health) { 
-        this.health = Math.min(health, maxHealth);
+        stats.set(StatSheet.HEALTH, Math.min(health, getMaxHealth()));
+    }
+    public void setAttack(int attack) {
+        stats.set(StatSheet.ATTACK, attack);
+        statsDirty = true;
     }
-    public void setAttack(int attack) { this.attack = attack; }
 
     public int getMeleeAttack() {
-        int total = attack;
-        for (List<Item> items : equipped.values()) {
-            for (Item i : items) {
-                if (i.isMelee()) total += i.getAttackFX();
-            }
-        }
-        return total;
+        if (statsDirty) recomputeStats();
+        return meleeTotal;
     }
 
     public int getRangedAttack() {
-        int total = rangedBase;
-        for (List<Item> items : equipped.values()) {
-            for (Item i : items) {
-                if (i.isRanged()) total += i.getAttackFX();
-            }
-        }
-        return total;
+        if (statsDirty) recomputeStats();
+        return rangedTotal;
     }
 
     public int getMagicAttack() {
-        int total = magicBase;
+        if (statsDirty) recomputeStats();
+        return magicTotal;
+    }
+
+    private void recomputeStats() {
+        meleeTotal = stats.get(StatSheet.ATTACK);
+        rangedTotal = stats.get(StatSheet.RANGED);
+        magicTotal = stats.get(StatSheet.MAGIC);
         for (List<Item> items : equipped.values()) {
             for (Item i : items) {
-                if (i.isMagic()) total += i.getAttackFX() + i.getMagicFX();
+                if (i.isMelee()) meleeTotal += i.getAttackFX();
+                if (i.isRanged()) rangedTotal += i.getAttackFX();
+                if (i.isMagic()) magicTotal += i.getAttackFX() + i.getMagicFX();
             }
         }
-        return total;
+        statsDirty = false;
     }
 
     public void addItem(Item item) {
-        if (inventory.size() >= INVENTORY_CAPACITY) {
+        if (inventory.size() >= inventoryCapacity) {
             System.out.println("Your inventory is full!");
             return;
         }
-        inventory.add(item);
+        addToInventory(item);
+        if (events != null) events.itemAdded(item);
     }
 
     public boolean useItem(String name) {
-        Iterator<Item> it = inventory.iterator();
-        while (it.hasNext()) {
-            Item i = it.next();
-            if (i.getName().equalsIgnoreCase(name)) {
-                if (i.getType().equals("potion") || i.getType().equals("food") || i.getType().equals("scroll")) {
-                    if (i.getHealthFX() > 0) {
-                        int heal = i.getHealthFX();
-                        if (heal > 0) {
-                            setHealth(this.health + heal);
-                            System.out.println("You used " + i.getName() + " and healed " + heal + " HP!");
-                        } else {
-                            System.out.println("You used " + i.getName() + ".");
-                        }
-                    } 
-                    if (i.getEnduranceFX() > 0) {
-                        increaseIndurance(i.getEnduranceFX());
-                        System.out.println("You used " + i.getName() + " and recovered " + i.getEnduranceFX() + " endurance!");
-                    } else {
-                        System.out.println("Not health");
-                    }
-                }
-                    it.remove();
-                    return true;
+        Item i = findItem(name);
+        if (i == null) {
+            System.out.println("You don't have that item.");
+            return false;
+        }
+        printUse(i);
+        consume(i);
+        return true;
+    }
+
+    // applies a consumable's effects and takes the item out of the inventory, without any output
+    boolean consume(Item i) {
+        List<Item> named = inventoryByName.get(i.getName().toLowerCase(Locale.ROOT));
+        if (named == null || !named.contains(i)) return false;
+        if (isConsumable(i)) {
+            if (i.getHealthFX() > 0) setHealth(getHealth() + i.getHealthFX());
+            if (i.getEnduranceFX() > 0) increaseIndurance(i.getEnduranceFX());
+        }
+        removeFromInventory(i);
+        return true;
+    }
+
+    private static boolean isConsumable(Item i) {
+        return i.getType().equals("potion") || i.getType().equals("food") || i.getType().equals("scroll");
+    }
+
+    static void printUse(Item i) {
+        if (isConsumable(i)) {
+            if (i.getHealthFX() > 0) {
+                int heal = i.getHealthFX();
+                if (heal > 0) {
+                    System.out.println("You used " + i.getName() + " and healed " + heal + " HP!");
                 } else {
-                    System.out.println("You can't use that item directly.");
-                    return false;
+                    System.out.println("You used " + i.getName() + ".");
                 }
+            } 
+            if (i.getEnduranceFX() > 0) {
+                System.out.println("You used " + i.getName() + " and recovered " + i.getEnduranceFX() + " endurance!");
+            } else {
+                System.out.println("Not health");
             }
-        System.out.println("You don't have that item.");
-        return false;
+        }
     }
 
     public boolean equipItem(Item item) {
@@ -154,6 +194,7 @@ public class Player {
         if (equippedOfType.contains(item)) return false;  
         if (equippedOfType.size() >= limit) return false; 
         equippedOfType.add(item);
+        statsDirty = true;
         applyItemEffects(item, true);
         return true;
     }
@@ -166,6 +207,7 @@ public class Player {
                 if (i.getName().equalsIgnoreCase(name)) {
                     applyItemEffects(i, false);
                     it.remove();
+                    statsDirty = true;
                     return true;
                 }
             }
@@ -173,29 +215,120 @@ public class Player {
         return false;
     }
 
-    public boolean removeItemByName(String name) {
-        Iterator<Item> it = inventory.iterator();
-        while (it.hasNext()) {
-            Item i = it.next();
-            if (i.getName().equalsIgnoreCase(name)) {
-                unequipItem(name);
-                it.remove();
-                return true;
+    public static final List<String> LOADOUT_GOALS = List.of("melee", "ranged", "magic", "defense", "stealth");
+
+    // how much equipping the item raises the goal stat, following applyItemEffects and the attack totals
+    static int loadoutScore(Item item, String goal) {
+        switch (goal) {
+            case "melee": return item.getAttackFX() + (item.isMelee() ? item.getAttackFX() : 0);
+            case "ranged": return item.getRangedFX() + (item.isRanged() ? item.getAttackFX() : 0);
+            case "magic": return item.getMagicFX() + (item.isMagic() ? item.getAttackFX() + item.getMagicFX() : 0);
+            case "defense": return item.getDefenseFX();
+            case "stealth": return item.getStealthFX();
+            default: throw new IllegalArgumentException("Unknown goal: " + goal);
+        }
+    }
+
+    // best items per type for the goal. scores add up, so the best loadout is just the top
+    // TYPE_LIMITS items of each type; a min-heap of that size per type keeps this O(n log k)
+    public Map<String, List<Item>> bestLoadout(String goal) {
+        int[] scores = new int[inventory.size()];
+        Map<String, PriorityQueue<Integer>> heaps = new HashMap<>();
+        // lowest score on top, and on ties the later item, so earlier items win
+        Comparator<Integer> worstFirst = (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[a], scores[b]) : Integer.compare(b, a);
+        for (int i = 0; i < scores.length; i++) {
+            Item item = inventory.get(i);
+            String type = item.getType();
+            if (type.equals("potion") || type.equals("food")) continue;
+            scores[i] = loadoutScore(item, goal);
+            if (scores[i] <= 0) continue;
+            int limit = TYPE_LIMITS.getOrDefault(type, 99);
+            PriorityQueue<Integer> heap = heaps.computeIfAbsent(type, k -> new PriorityQueue<>(Math.min(limit, 16), worstFirst));
+            if (heap.size() < limit) {
+                heap.add(i);
+            } else if (worstFirst.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(i);
             }
         }
-        return false;
+
+        Map<String, List<Item>> loadout = new HashMap<>();
+        for (Map.Entry<String, PriorityQueue<Integer>> e : heaps.entrySet()) {
+            List<Integer> picked = new ArrayList<>(e.getValue());
+            picked.sort(null);
+            List<Item> items = new ArrayList<>(picked.size());
+            for (int i : picked) items.add(inventory.get(i));
+            loadout.put(e.getKey(), items);
+        }
+        return loadout;
+    }
+
+    // swaps the equipped set for bestLoadout(goal) and returns how many items are now equipped.
+    // items already in the loadout stay on, so their health bonus isn't lost to the max health clamp
+    public int autoEquip(String goal) {
+        Map<String, List<Item>> loadout = bestLoadout(goal);
+        Set<Item> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Item> items : loadout.values()) keep.addAll(items);
+        for (List<Item> items : equipped.values()) {
+            Iterator<Item> it = items.iterator();
+            while (it.hasNext()) {
+                Item i = it.next();
+                if (!keep.contains(i)) {
+                    applyItemEffects(i, false);
+                    it.remove();
+                }
+            }
+        }
+        for (List<Item> items : loadout.values()) {
+            for (Item i : items) equipItem(i);
+        }
+        return keep.size();
+    }
+
+    public boolean removeItemByName(String name) {
+        Item i = findItem(name);
+        if (i == null) return false;
+        unequipItem(name);
+        removeFromInventory(i);
+        return true;
+    }
+
+    // first item with this name in inventory order, ignoring case
+    private Item findItem(String name) {
+        List<Item> matches = inventoryByName.get(name.toLowerCase(Locale.ROOT));
+        return matches == null ? null : matches.get(0);
+    }
+
+    private void addToInventory(Item item) {
+        inventory.add(item);
+        inventoryByName.computeIfAbsent(item.getName().toLowerCase(Locale.ROOT), k -> new ArrayList<>(1)).add(item);
+        inventoryByType.computeIfAbsent(item.getType().toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(item);
+        if (item.isMelee()) meleeItems++;
+        if (item.isRanged()) rangedItems++;
+        if (item.isMagic()) magicItems++;
+    }
+
+    private void removeFromInventory(Item item) {
+        inventory.remove(item);
+        unindex(inventoryByName, item.getName(), item);
+        unindex(inventoryByType, item.getType(), item);
+        if (item.isMelee()) meleeItems--;
+        if (item.isRanged()) rangedItems--;
+        if (item.isMagic()) magicItems--;
+    }
+
+    private static void unindex(Map<String, List<Item>> index, String key, Item item) {
+        String folded = key.toLowerCase(Locale.ROOT);
+        List<Item> items = index.get(folded);
+        items.remove(item);
+        if (items.isEmpty()) index.remove(folded);
     }
 
     private void applyItemEffects(Item item, boolean apply) {
         int mult = apply ? 1 : -1;
-        this.stealth += mult * item.getStealthFX();
-        this.attack += mult * item.getAttackFX();
-        this.maxHealth += mult * item.getHealthFX(); 
-        this.defense += mult * item.getDefenseFX();
-        this.magicBase += mult * item.getMagicFX();
-        this.rangedBase += mult * item.getRangedFX();
-        this.endurance += mult * item.getEnduranceFX();
-        if (this.health > this.maxHealth) this.health = this.maxHealth;
+        statsDirty = true;
+        item.addEffectsTo(stats, mult);
+        if (getHealth() > getMaxHealth()) stats.set(StatSheet.HEALTH, getMaxHealth());
     }
 
     public Item getLastItem() {
@@ -205,7 +338,7 @@ public class Player {
 
     public Item getBestGearOfType(String type) {
         Item best = null;
-        for (Item i : inventory) {
+        for (Item i : inventoryByType.getOrDefault(type.toLowerCase(Locale.ROOT), Collections.emptyList())) {
             if (i.getType().equals(type)) {
                 if (best == null || i.getAttackFX() + i.getStealthFX() + i.getHealthFX() >
                     best.getAttackFX() + best.getStealthFX() + best.getHealthFX()) {
@@ -228,11 +361,7 @@ public class Player {
     }
 
     public List<Item> getInventoryByType(String type) {
-        List<Item> filtered = new ArrayList<>();
-        for (Item i : inventory) {
-            if (i.getType().equalsIgnoreCase(type)) filtered.add(i);
-        }
-        return filtered;
+        return new ArrayList<>(inventoryByType.getOrDefault(type.toLowerCase(Locale.ROOT), Collections.emptyList()));
     }
 
     public void choosepClass(Scanner scanner) {
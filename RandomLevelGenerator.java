@@ -1,217 +1,327 @@
-import com.google.gson.*;
-
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class RandomLevelGenerator {
-    private JsonObject data;
-    private int lastThemeIndex = -1;
-    private Random rand = new Random();
+    // swapped wholesale on reload; each level reads it once so it never mixes two catalogs
+    private volatile BlueprintCatalog catalog;
+    // seeds generateLevel(int) so a plain session still never repeats a theme back to back
+    private final long sessionSeed = new Random().nextLong();
+    // spawn notes on each level are for interactive play; batch runs turn them off
+    private boolean debug = true;
+    // rooms per level before the portal, capped by how many rooms the theme has
+    private int minRooms = 4;
+    private int maxRooms = 8;
+    // lazy levels only wire the room graph up front and build each room's contents on first visit
+    private boolean lazyRooms;
+    // the session's bus, handed to every entity and door of the levels built here
+    private volatile GameEvents events;
+
+    // receives each generated level; called concurrently from pool threads
+    public interface LevelConsumer {
+        void accept(long seed, int level, Main.LevelData data);
+    }
 
     public RandomLevelGenerator(String jsonFile) throws IOException {
-        try (Reader reader = new FileReader(jsonFile)) {
-            data = JsonParser.parseReader(reader).getAsJsonObject();
+        catalog = BlueprintCatalog.open(jsonFile);
+    }
+
+    public RandomLevelGenerator(BlueprintCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    // prefers an up-to-date compiled snapshot next to the json and falls back to parsing the json
+    public static RandomLevelGenerator open(String jsonFile) throws IOException {
+        BlueprintCatalog snapshot = BlueprintSnapshot.load(BlueprintSnapshot.snapshotPathFor(jsonFile), jsonFile);
+        if (snapshot != null) return new RandomLevelGenerator(snapshot);
+        return new RandomLevelGenerator(jsonFile);
+    }
+
+    public BlueprintCatalog getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(BlueprintCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public void setDebug(boolean debug) {
+        this.debug = debug;
+    }
+
+    public void setLevelSize(int minRooms, int maxRooms) {
+        if (minRooms < 1 || maxRooms < minRooms) {
+            throw new IllegalArgumentException("Invalid level size: " + minRooms + "-" + maxRooms);
         }
+        this.minRooms = minRooms;
+        this.maxRooms = maxRooms;
     }
 
-    public Main.LevelData generateLevel(int level) {
-        JsonArray themes = data.getAsJsonArray("themes");
-        int themeIdx;
-        if (themes.size() <= 1) {
-            themeIdx = 0;
-        } else {
-            do {
-                themeIdx = rand.nextInt(themes.size());
-            } while (themeIdx == lastThemeIndex);
-        }
-        lastThemeIndex = themeIdx;
-        JsonObject theme = themes.get(themeIdx).getAsJsonObject();
-
-        JsonArray roomsArr = theme.getAsJsonArray("rooms");
-        int numRooms = Math.min(roomsArr.size(), 4 + rand.nextInt(5)); 
-        List<Integer> chosenIndices = new ArrayList<>();
-        while (chosenIndices.size() < numRooms) {
-            int idx = rand.nextInt(roomsArr.size());
-            if (!chosenIndices.contains(idx)) chosenIndices.add(idx);
-        }
-
-        List<Room> rooms = new ArrayList<>();
-        for (int idx : chosenIndices) {
-            JsonObject roomObj = roomsArr.get(idx).getAsJsonObject();
-            String name = roomObj.get("name").getAsString();
-            String desc = roomObj.get("description").getAsString();
-
-            List<Entity> monsters = new ArrayList<>();
-            for (JsonElement mName : roomObj.getAsJsonArray("monsters")) {
-                Entity monster = createMonster(mName.getAsString(), level);
-                if (monster != null) monsters.add(monster);
-            }
+    public void setLazyRooms(boolean lazyRooms) {
+        this.lazyRooms = lazyRooms;
+    }
+
+    public void setEvents(GameEvents events) {
+        this.events = events;
+    }
+
+    // generates every (seed, level) pair for seeds [firstSeed, firstSeed + seedCount) and levels
+    // [firstLevel, lastLevel] on the pool, handing each level to the consumer instead of collecting them
+    public void generateBatch(long firstSeed, int seedCount, int firstLevel, int lastLevel, ForkJoinPool pool, LevelConsumer consumer) {
+        // pin the current catalog so a reload mid-batch can't mix content
+        RandomLevelGenerator pinned = new RandomLevelGenerator(catalog);
+        pinned.setDebug(false);
+        pinned.setLevelSize(minRooms, maxRooms);
+        pinned.setLazyRooms(lazyRooms);
+        int levelCount = lastLevel - firstLevel + 1;
+        if (seedCount <= 0 || levelCount <= 0) return;
+        pool.invoke(new BatchTask(pinned, firstSeed, firstLevel, levelCount, 0, (long) seedCount * levelCount, consumer));
+    }
+
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final long THRESHOLD = 32;
+
+        private final RandomLevelGenerator generator;
+        private final long firstSeed;
+        private final int firstLevel;
+        private final int levelCount;
+        private final long from;
+        private final long to;
+        private final LevelConsumer consumer;
+
+        BatchTask(RandomLevelGenerator generator, long firstSeed, int firstLevel, int levelCount, long from, long to, LevelConsumer consumer) {
+            this.generator = generator;
+            this.firstSeed = firstSeed;
+            this.firstLevel = firstLevel;
+            this.levelCount = levelCount;
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
 
-            List<Item> items = new ArrayList<>();
-            for (JsonElement iName : roomObj.getAsJsonArray("items")) {
-                Item item = createItem(iName.getAsString(), level);
-                if (item != null) items.add(item);
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (long i = from; i < to; i++) {
+                    long seed = firstSeed + i / levelCount;
+                    int level = firstLevel + (int) (i % levelCount);
+                    consumer.accept(seed, level, generator.generateLevel(seed, level));
+                }
+                return;
             }
+            long mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(generator, firstSeed, firstLevel, levelCount, from, mid, consumer),
+                      new BatchTask(generator, firstSeed, firstLevel, levelCount, mid, to, consumer));
+        }
+    }
+
+    public Main.LevelData generateLevel(int level) {
+        return generateLevel(sessionSeed, level);
+    }
+
+    // the same seed, level and catalog always produce the same level, on any thread
+    public Main.LevelData generateLevel(long seed, int level) {
+        BlueprintCatalog catalog = this.catalog;
+        SplittableRandom levelRng = new SplittableRandom(levelSeed(seed, level));
+        SplittableRandom rand = levelRng.split();
+
+        BlueprintCatalog.Theme theme = catalog.getTheme(pickTheme(seed, level, catalog.getThemeCount()));
+
+        BlueprintCatalog.RoomBlueprint[] roomsArr = theme.rooms;
+        int numRooms = Math.min(roomsArr.length, minRooms + rand.nextInt(maxRooms - minRooms + 1));
 
-            rooms.add(new Room(name, desc, items.toArray(new Item[0]), monsters.toArray(new Entity[0]), new Room[0]));
+        // partial fisher-yates: only the first numRooms slots are shuffled, no retries on collisions
+        int[] order = new int[roomsArr.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        for (int i = 0; i < numRooms; i++) {
+            int j = i + rand.nextInt(order.length - i);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        // node numRooms is the portal, wired last so it never takes one of the capped exits
+        int nodeCount = theme.portal != null ? numRooms + 1 : numRooms;
+        Room[] rooms = new Room[nodeCount];
+        RoomLoader[] loaders = lazyRooms ? new RoomLoader[nodeCount] : null;
+        Main.LevelData data = new Main.LevelData();
+        data.hostiles = new HostileCounters();
+        for (int i = 0; i < numRooms; i++) {
+            rooms[i] = newRoom(catalog, roomsArr[order[i]], level, data, loaders, i);
         }
 
         int maxExits = 4;
-        Map<Room, Set<Room>> adjacency = new HashMap<>();
-        for (Room r : rooms) adjacency.put(r, new HashSet<>());
+        RoomGraph graph = new RoomGraph(nodeCount, maxExits);
 
-        List<Room> unconnected = new ArrayList<>(rooms);
-        List<Room> connected = new ArrayList<>();
-        connected.add(unconnected.remove(0));
-        while (!unconnected.isEmpty()) {
-            Room from = connected.get(rand.nextInt(connected.size()));
-            Room to = unconnected.remove(rand.nextInt(unconnected.size()));
-            adjacency.get(from).add(to);
-            adjacency.get(to).add(from);
-            connected.add(to);
+        // rooms are already in random order, so hooking each one to an earlier room gives a random spanning tree
+        for (int i = 1; i < numRooms; i++) {
+            graph.connect(rand.nextInt(i), i);
         }
 
         int extraConnections = numRooms + rand.nextInt(numRooms); 
         for (int i = 0; i < extraConnections; i++) {
-            Room a = rooms.get(rand.nextInt(rooms.size()));
-            Room b = rooms.get(rand.nextInt(rooms.size()));
-            if (a != b && adjacency.get(a).size() < maxExits && adjacency.get(b).size() < maxExits) {
-                adjacency.get(a).add(b);
-                adjacency.get(b).add(a);
-            }
+            graph.connectCapped(rand.nextInt(numRooms), rand.nextInt(numRooms));
         }
 
-        for (Room r : rooms) {
-            r.setExits(adjacency.get(r).toArray(new Room[0]));
-        }
-
-        Main.LevelData data = new Main.LevelData();
-        data.startingRoom = rooms.get(0);
+        data.seed = seed;
+        data.winConditionRng = levelRng.split();
+        data.combatRng = levelRng.split();
+        data.startingRoom = rooms[0];
         data.lockedDoors = new HashMap<>();
         data.requirement = new Main.EnterPortalRequirement();
         
         Room portalRoom = null;
-        for (int i = 0; i < roomsArr.size(); i++) {
-            JsonObject roomObj = roomsArr.get(i).getAsJsonObject();
-            if (roomObj.get("name").getAsString().equalsIgnoreCase("Portal")) {
-                List<Entity> monsters = new ArrayList<>();
-                for (JsonElement mName : roomObj.getAsJsonArray("monsters")) {
-                    Entity monster = createMonster(mName.getAsString(), level);
-                    if (monster != null) monsters.add(monster);
-                }
-                List<Item> items = new ArrayList<>();
-                for (JsonElement iName : roomObj.getAsJsonArray("items")) {
-                    Item item = createItem(iName.getAsString(), level);
-                    if (item != null) items.add(item);
-                }
-                portalRoom = new Room("Portal", roomObj.get("description").getAsString(),
-                                      items.toArray(new Item[0]), monsters.toArray(new Entity[0]), new Room[0]);
-                break;
-            }
+        if (theme.portal != null) {
+            portalRoom = newRoom(catalog, theme.portal, level, data, loaders, numRooms);
+            portalRoom.setName("Portal");
+            rooms[numRooms] = portalRoom;
+            graph.connect(rand.nextInt(numRooms), numRooms);
+            keyDoor portalDoor = new keyDoor(false, true, "Portal Key", true);
+            portalDoor.setEvents(events);
+            data.lockedDoors.put(portalRoom, portalDoor);
         }
 
-        if (portalRoom != null) {
-            Room connectFrom = rooms.get(rand.nextInt(rooms.size()));
-            Room[] fromExits = connectFrom.getExits();
-            Room[] newFromExits = Arrays.copyOf(fromExits, fromExits.length + 1);
-            newFromExits[fromExits.length] = portalRoom;
-            connectFrom.setExits(newFromExits);
-
-            Room[] portalExits = portalRoom.getExits();
-            Room[] newPortalExits = Arrays.copyOf(portalExits, portalExits.length + 1);
-            newPortalExits[portalExits.length] = connectFrom;
-            portalRoom.setExits(newPortalExits);
-            data.lockedDoors.put(portalRoom, new keyDoor(false, true, "Portal Key", true));
+        for (int i = 0; i < nodeCount; i++) {
+            rooms[i].setId(i);
+            rooms[i].setExits(graph.exits(i, rooms));
         }
 
         data.portalRoom = portalRoom;
+        data.rooms = rooms;
 
-        Room secretMapRoom = rooms.get(rand.nextInt(rooms.size()));
-        Room portalKeyRoom = rooms.get(rand.nextInt(rooms.size()));
-        while (portalKeyRoom == secretMapRoom && rooms.size() > 1) {
-            portalKeyRoom = rooms.get(rand.nextInt(rooms.size()));
+        int secretMapRoom = rand.nextInt(numRooms);
+        int portalKeyRoom = rand.nextInt(numRooms);
+        while (portalKeyRoom == secretMapRoom && numRooms > 1) {
+            portalKeyRoom = rand.nextInt(numRooms);
         }
 
-        Item secretMap = createItem("Secret Map", level);
+        Item secretMap = createItem(catalog, "Secret Map");
         if (secretMap != null) {
-            List<Item> items = new ArrayList<>(Arrays.asList(secretMapRoom.getItems()));
-            items.add(secretMap);
-            secretMapRoom.setItems(items.toArray(new Item[0]));
-            System.out.println("[DEBUG] Secret Map spawned in: " + secretMapRoom.getName());
+            placeItem(rooms, loaders, secretMapRoom, secretMap);
+            if (debug) data.debugNotes.add("[DEBUG] Secret Map spawned in: " + rooms[secretMapRoom].getName());
         }
 
-        Item portalKey = createItem("Portal Key", level);
+        Item portalKey = createItem(catalog, "Portal Key");
         if (portalKey != null) {
-            List<Item> items = new ArrayList<>(Arrays.asList(portalKeyRoom.getItems()));
-            items.add(portalKey);
-            portalKeyRoom.setItems(items.toArray(new Item[0]));
-            System.out.println("[DEBUG] Portal Key spawned in: " + portalKeyRoom.getName());
+            placeItem(rooms, loaders, portalKeyRoom, portalKey);
+            if (debug) data.debugNotes.add("[DEBUG] Portal Key spawned in: " + rooms[portalKeyRoom].getName());
         }
 
+        // the player starts here, so there's no point deferring it
+        data.startingRoom.materialize();
         return data;
     }
 
-    private Entity createMonster(String name, int level) {
-        JsonArray monsters = data.getAsJsonArray("monsters");
-        for (JsonElement elem : monsters) {
-            JsonObject m = elem.getAsJsonObject();
-            if (m.get("name").getAsString().equalsIgnoreCase(name)) {
-                int health = m.get("baseHealth").getAsInt() + m.getAsJsonObject("scaling").get("health").getAsInt() * level;
-                int attack = m.get("baseAttack").getAsInt() + m.getAsJsonObject("scaling").get("attack").getAsInt() * level;
-                boolean canMelee = m.has("canMelee") && m.get("canMelee").getAsBoolean();
-                boolean canRanged = m.has("canRanged") && m.get("canRanged").getAsBoolean();
-                boolean canMagic = m.has("canMagic") && m.get("canMagic").getAsBoolean();
-                int rangeAttack = m.has("rangeAttack") ? m.get("rangeAttack").getAsInt() : 0;
-                int magicAttack = m.has("magicAttack") ? m.get("magicAttack").getAsInt() : 0;
-                int initiative = m.has("initiative") ? m.get("initiative").getAsInt() : 0;
-                boolean autoAttack = m.has("autoAttack") && m.get("autoAttack").getAsBoolean();
-                List<Drop> drops = m.has("drops") ? createDrops(m.getAsJsonArray("drops")) : new ArrayList<>();
-                System.out.println(drops);
-
-                return new Entity(name, m.get("desc").getAsString(), true, false, health, attack, canMelee, canRanged, canMagic, rangeAttack, magicAttack, initiative, autoAttack, drops);
-            }
+    // spreads (seed, level) pairs across the seed space so neighbouring levels don't correlate
+    static long levelSeed(long seed, int level) {
+        return new SplittableRandom(seed ^ (level * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    // replays the theme stream up to this level so consecutive levels never share a theme
+    static int pickTheme(long seed, int level, int themeCount) {
+        if (themeCount <= 1) return 0;
+        SplittableRandom themeRng = new SplittableRandom(seed);
+        int themeIdx = -1;
+        for (int l = 1; l <= Math.max(level, 1); l++) {
+            int previous = themeIdx;
+            do {
+                themeIdx = themeRng.nextInt(themeCount);
+            } while (themeIdx == previous);
+        }
+        return themeIdx;
+    }
+
+    private Room newRoom(BlueprintCatalog catalog, BlueprintCatalog.RoomBlueprint blueprint, int level, Main.LevelData data, RoomLoader[] loaders, int id) {
+        // counted from the blueprint so lazy rooms are included before they're built
+        for (String mName : blueprint.monsters) {
+            MonsterTemplate m = catalog.getMonster(mName);
+            if (m != null) data.hostiles.placed(m.getName());
         }
-        return null;
+        if (loaders == null) return buildRoom(catalog, blueprint, level, data.hostiles);
+        loaders[id] = new RoomLoader(catalog, blueprint, level, data);
+        return new Room(blueprint.name, blueprint.description, loaders[id]);
     }
 
-    public List<Drop> createDrops(JsonArray dropsJson) {
-        List<Drop> drops = new ArrayList<>();
-        for (JsonElement dropElement : dropsJson) {
-            if (dropElement.isJsonPrimitive() && dropElement.getAsJsonPrimitive().isString()) {
-                String itemName = dropElement.getAsString();
-                double chance = 1.0; 
-                Item item = createItem(itemName, chance); 
-                drops.add(new Drop(item, chance));
+    // win-condition items go after the blueprint's own items in both modes
+    private static void placeItem(Room[] rooms, RoomLoader[] loaders, int id, Item item) {
+        if (loaders != null) loaders[id].placed.add(item);
+        else rooms[id].addItem(item);
+    }
+
+    private Room buildRoom(BlueprintCatalog catalog, BlueprintCatalog.RoomBlueprint blueprint, int level, HostileCounters hostiles) {
+        return new Room(blueprint.name, blueprint.description, buildItems(catalog, blueprint), buildMonsters(catalog, blueprint, level, hostiles), new Room[0]);
+    }
+
+    private Entity[] buildMonsters(BlueprintCatalog catalog, BlueprintCatalog.RoomBlueprint blueprint, int level, HostileCounters hostiles) {
+        List<Entity> monsters = new ArrayList<>();
+        for (String mName : blueprint.monsters) {
+            Entity monster = createMonster(catalog, mName, level);
+            if (monster != null) {
+                monster.setCounters(hostiles);
+                monster.setEvents(events);
+                monsters.add(monster);
             }
         }
-        return drops;
-    }
-
-
-    private Item createItem(String name, double chance) {
-        JsonArray items = data.getAsJsonArray("items");
-        for (JsonElement elem : items) {
-            JsonObject i = elem.getAsJsonObject();
-            if (!i.has("name")) continue;
-
-            if (i.get("name").getAsString().equalsIgnoreCase(name)) {
-                int healthFX = i.has("healthFX") ? i.get("healthFX").getAsInt() : 0;
-                int attackFX = i.has("attackFX") ? i.get("attackFX").getAsInt() : 0;
-                int defenseFX = i.has("defenseFX") ? i.get("defenseFX").getAsInt() : 0;
-                String type = i.has("type") ? i.get("type").getAsString() : "misc";
-                return new Item(
-                    name,
-                    i.has("description") ? i.get("description").getAsString() : "",
-                    true,
-                    false,
-                    healthFX,
-                    attackFX,
-                    0,
-                    type,
-                    defenseFX
-                );
+        return monsters.toArray(new Entity[0]);
+    }
+
+    private Item[] buildItems(BlueprintCatalog catalog, BlueprintCatalog.RoomBlueprint blueprint) {
+        List<Item> items = new ArrayList<>();
+        for (String iName : blueprint.items) {
+            Item item = createItem(catalog, iName);
+            if (item != null) items.add(item);
+        }
+        return items.toArray(new Item[0]);
+    }
+
+    // everything eager generation would use to build a room, kept until the room is first entered.
+    // room contents only depend on the blueprint, level and catalog, so building them later gives the
+    // same room; the random choices (which rooms, exits, item placement) are all made up front
+    private class RoomLoader implements Room.Contents {
+        private final BlueprintCatalog catalog;
+        private final BlueprintCatalog.RoomBlueprint blueprint;
+        private final int level;
+        private final Main.LevelData data;
+        private final List<Item> placed = new ArrayList<>(2);
+
+        RoomLoader(BlueprintCatalog catalog, BlueprintCatalog.RoomBlueprint blueprint, int level, Main.LevelData data) {
+            this.catalog = catalog;
+            this.blueprint = blueprint;
+            this.level = level;
+            this.data = data;
+        }
+
+        @Override
+        public Item[] items() {
+            Item[] items = buildItems(catalog, blueprint);
+            if (placed.isEmpty()) return items;
+            Item[] all = Arrays.copyOf(items, items.length + placed.size());
+            for (int i = 0; i < placed.size(); i++) all[items.length + i] = placed.get(i);
+            return all;
+        }
+
+        @Override
+        public Entity[] characters() {
+            Entity[] monsters = buildMonsters(catalog, blueprint, level, data.hostiles);
+            // read when the room is built, so it picks up a scaling the win condition set afterwards
+            if (data.hostileScaling != 1) {
+                for (Entity monster : monsters) monster.scaleStats(data.hostileScaling);
             }
+            return monsters;
         }
-        return null;
+    }
+
+    private Entity createMonster(BlueprintCatalog catalog, String name, int level) {
+        MonsterTemplate m = catalog.getMonster(name);
+        if (m == null) return null;
+        List<Drop> drops = catalog.getDrops(m);
+        return new Entity(m, level, drops, catalog.getLootTable(m));
+    }
+
+    private Item createItem(BlueprintCatalog catalog, String name) {
+        ItemTemplate template = catalog.getItem(name);
+        return template == null ? null : template.newItem();
     }
 }
@@ -1,17 +1,58 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
 public class Room {
     private String name;
     private String description;
-    private Item[] items;
-    private Entity[] characters;
-    private Room[] exits;
+    private final Slots<Item> items;
+    private final Slots<Entity> characters;
+    private final Slots<Room> exits;
     private boolean discovered = false;
+    // dense index into the level's room registry, -1 for rooms built outside a generated level
+    private int id = -1;
+    // set on rooms of a lazy level until something first looks at their items or characters
+    private Contents pending;
+
+    // builds a room's items and characters on demand, always the same for the same room
+    interface Contents {
+        Item[] items();
+        Entity[] characters();
+    }
 
     public Room(String name, String description, Item[] items, Entity[] characters, Room[] exits) {
         this.name = name;
         this.description = description;
-        this.items = items;
-        this.characters = characters;
-        this.exits = exits;
+        // picked-up items and defeated characters are dropped whenever the storage would otherwise grow
+        this.items = new Slots<>(items, Item::isPickedUp);
+        this.characters = new Slots<>(characters, Entity::isDefeated);
+        this.exits = new Slots<>(exits, null);
+    }
+
+    Room(String name, String description, Contents pending) {
+        this(name, description, new Item[0], new Entity[0], new Room[0]);
+        this.pending = pending;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    public boolean isMaterialized() {
+        return pending == null;
+    }
+
+    public void materialize() {
+        if (pending == null) return;
+        Contents contents = pending;
+        pending = null;
+        items.set(contents.items());
+        characters.set(contents.characters());
     }
 
     public void markDiscovered() {
@@ -30,16 +71,34 @@ public class Room {
         return description;
     }
 
+    // the returned arrays are reused until the room changes, so don't modify them
     public Item[] getItems() {
-        return items;
+        materialize();
+        return items.toArray();
     }
 
     public Entity[] getCharacters() {
-        return characters;
+        materialize();
+        return characters.toArray();
     }
 
     public Room[] getExits() {
-        return exits;
+        return exits.toArray();
+    }
+
+    // live read-only views over the room's storage, for rendering without copying
+    public List<Item> itemView() {
+        materialize();
+        return items.view;
+    }
+
+    public List<Entity> characterView() {
+        materialize();
+        return characters.view;
+    }
+
+    public List<Room> exitView() {
+        return exits.view;
     }
 
     public void setName(String name) {
@@ -51,85 +110,145 @@ public class Room {
     }
 
     public void setItems(Item[] items) {
-        this.items = items;
+        materialize();
+        this.items.set(items);
     }
 
     public void setCharacters(Entity[] characters) {
-        this.characters = characters;
+        materialize();
+        this.characters.set(characters);
     }
 
     public void setExits(Room[] exits) {
-        this.exits = exits;
+        this.exits.set(exits);
     }
 
     public void addItem(Item item) {
-        Item[] newItems = new Item[items.length + 1];
-        System.arraycopy(items, 0, newItems, 0, items.length);
-        newItems[items.length] = item;
-        items = newItems;
+        materialize();
+        items.add(item);
     }
 
+    // swap-removes, so the last item takes the removed one's place
     public void removeItem(Item item) {
-        Item[] newItems = new Item[items.length - 1];
-        int index = 0;
-        for (Item i : items) {
-            if (!i.equals(item)) {
-                newItems[index++] = i;
-            }
-        }
-        items = newItems;
+        materialize();
+        items.remove(item);
     }
 
     public void addCharacter(Entity character) {
-        Entity[] newCharacters = new Entity[characters.length + 1];
-        System.arraycopy(characters, 0, newCharacters, 0, characters.length);
-        newCharacters[characters.length] = character;
-        characters = newCharacters;
+        materialize();
+        characters.add(character);
     }
 
     public void removeCharacter(Entity character) {
-        Entity[] newCharacters = new Entity[characters.length - 1];
-        int index = 0;
-        for (Entity c : characters) {
-            if (!c.equals(character)) {
-                newCharacters[index++] = c;
-            }
-        }
-        characters = newCharacters;
+        materialize();
+        characters.remove(character);
     }
 
     public void addExit(Room exit) {
-        Room[] newExits = new Room[exits.length + 1];
-        System.arraycopy(exits, 0, newExits, 0, exits.length);
-        newExits[exits.length] = exit;
-        exits = newExits;
+        exits.add(exit);
     }
 
     public void removeExit(Room exit) {
-        Room[] newExits = new Room[exits.length - 1];
-        int index = 0;
-        for (Room r : exits) {
-            if (!r.equals(exit)) {
-                newExits[index++] = r;
-            }
-        }
-        exits = newExits;
+        exits.remove(exit);
+    }
+
+    // drops picked-up items and defeated characters, keeping the order of the rest
+    public void compact() {
+        if (pending != null) return;
+        items.compact();
+        characters.compact();
     }
 
     public void printDetails() {
+        materialize();
         System.out.println("Room Name: " + name);
         System.out.println("Description: " + description);
         System.out.println("Items: ");
-        for (Item item : items) {
+        for (Item item : items.view) {
             System.out.println("- " + item.getName() + ": " + item.getDescription());
         }
         System.out.println("Characters: ");
-        for (Entity character : characters) {
+        for (Entity character : characters.view) {
             System.out.println("- " + character.getName() + ": " + character.getDesc());
         }
         System.out.println("Exits: ");
-        for (Room exit : exits) {
+        for (Room exit : exits.view) {
             System.out.println("- " + exit.getName());
         }
     }
+
+    // growable array with amortized appends and swap-remove. toArray() hands out an exact-size
+    // copy that is cached until the next change; a handed-out array is never written to afterwards
+    private static final class Slots<T> {
+        private T[] data;
+        private int size;
+        private T[] snapshot;
+        // entries that can be thrown away on compaction, or null if none ever can
+        private final Predicate<T> dead;
+        final List<T> view = new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                if (index >= size) throw new IndexOutOfBoundsException(index);
+                return data[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+
+        Slots(T[] initial, Predicate<T> dead) {
+            this.dead = dead;
+            set(initial);
+        }
+
+        void set(T[] values) {
+            data = values;
+            size = values.length;
+            snapshot = values;
+        }
+
+        T[] toArray() {
+            if (snapshot == null) snapshot = Arrays.copyOf(data, size);
+            return snapshot;
+        }
+
+        void add(T value) {
+            if (size == data.length) {
+                compact();
+                if (size == data.length) data = Arrays.copyOf(data, Math.max(4, size * 2));
+            }
+            if (snapshot == data) data = data.clone();
+            data[size++] = value;
+            snapshot = null;
+        }
+
+        boolean remove(T value) {
+            for (int i = 0; i < size; i++) {
+                if (data[i].equals(value)) {
+                    if (snapshot == data) data = data.clone();
+                    data[i] = data[--size];
+                    data[size] = null;
+                    snapshot = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void compact() {
+            if (dead == null) return;
+            int kept = 0;
+            while (kept < size && !dead.test(data[kept])) kept++;
+            if (kept == size) return;
+            if (snapshot == data) data = data.clone();
+            for (int i = kept + 1; i < size; i++) {
+                if (!dead.test(data[i])) data[kept++] = data[i];
+            }
+            Arrays.fill(data, kept, size, null);
+            size = kept;
+            snapshot = null;
+        }
+    }
 }
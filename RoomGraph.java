@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+// int-indexed undirected graph used to wire a level before any exits are handed to rooms.
+// edges are kept in insertion order and packed into compressed rows (offsets + targets),
+// so each room's exits come out in the order its connections were made
+class RoomGraph {
+    private final int nodeCount;
+    private final int maxExits;
+    private final int[] degree;
+    // the first maxExits neighbours of every node; enough to reject duplicate capped edges
+    private final int[] firstNeighbours;
+    private int[] edgeFrom = new int[16];
+    private int[] edgeTo = new int[16];
+    private int edgeCount;
+    private int[] offsets;
+    private int[] targets;
+
+    RoomGraph(int nodeCount, int maxExits) {
+        this.nodeCount = nodeCount;
+        this.maxExits = maxExits;
+        this.degree = new int[nodeCount];
+        this.firstNeighbours = new int[nodeCount * maxExits];
+    }
+
+    // always added: spanning tree and portal edges ignore the exit cap. callers only connect
+    // a node here the first time they link it to the other one
+    void connect(int a, int b) {
+        add(a, b);
+    }
+
+    // adds the edge only if both ends are below maxExits and it doesn't exist yet
+    boolean connectCapped(int a, int b) {
+        if (a == b || degree[a] >= maxExits || degree[b] >= maxExits) return false;
+        int base = a * maxExits;
+        for (int k = 0; k < degree[a]; k++) {
+            if (firstNeighbours[base + k] == b) return false;
+        }
+        add(a, b);
+        return true;
+    }
+
+    // exits of a node as rooms, in connection order
+    Room[] exits(int node, Room[] rooms) {
+        pack();
+        int from = offsets[node];
+        Room[] exits = new Room[offsets[node + 1] - from];
+        for (int k = 0; k < exits.length; k++) exits[k] = rooms[targets[from + k]];
+        return exits;
+    }
+
+    private void add(int a, int b) {
+        if (edgeCount == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+        }
+        edgeFrom[edgeCount] = a;
+        edgeTo[edgeCount] = b;
+        edgeCount++;
+        record(a, b);
+        record(b, a);
+        offsets = null;
+    }
+
+    private void record(int node, int neighbour) {
+        if (degree[node] < maxExits) firstNeighbours[node * maxExits + degree[node]] = neighbour;
+        degree[node]++;
+    }
+
+    private void pack() {
+        if (offsets != null) return;
+        offsets = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) offsets[i + 1] = offsets[i] + degree[i];
+        targets = new int[edgeCount * 2];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            targets[fill[edgeFrom[e]]++] = edgeTo[e];
+            targets[fill[edgeTo[e]]++] = edgeFrom[e];
+        }
+    }
+}
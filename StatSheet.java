@@ -0,0 +1,50 @@
+// a fixed set of numeric stats packed into one int array. players, entities and item effects
+// all use the same layout, so equipping an item is a single vector add
+public class StatSheet {
+    public static final int HEALTH = 0;
+    public static final int MAX_HEALTH = 1;
+    public static final int ATTACK = 2;
+    public static final int RANGED = 3;
+    public static final int MAGIC = 4;
+    public static final int STEALTH = 5;
+    public static final int DEFENSE = 6;
+    public static final int ENDURANCE = 7;
+    public static final int PERCEPTION = 8;
+    public static final int SIZE = 9;
+
+    private final int[] values;
+
+    public StatSheet() {
+        this.values = new int[SIZE];
+    }
+
+    private StatSheet(int[] values) {
+        this.values = values;
+    }
+
+    public int get(int stat) {
+        return values[stat];
+    }
+
+    public void set(int stat, int value) {
+        values[stat] = value;
+    }
+
+    public void add(int stat, int amount) {
+        values[stat] += amount;
+    }
+
+    // this += other * factor; a factor of 1 or -1 applies or removes an item's effects
+    public void addScaled(StatSheet other, int factor) {
+        int[] o = other.values;
+        for (int i = 0; i < SIZE; i++) values[i] += o[i] * factor;
+    }
+
+    public void scale(int factor) {
+        for (int i = 0; i < SIZE; i++) values[i] *= factor;
+    }
+
+    public StatSheet copy() {
+        return new StatSheet(values.clone());
+    }
+}
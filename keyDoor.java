@@ -3,6 +3,7 @@ public class keyDoor {
     private boolean isDoor;
     private String keyType;
     private boolean locked;
+    private GameEvents events;
 
     public keyDoor(boolean isKey, boolean isDoor, String keyType) {
         this(isKey, isDoor, keyType, isDoor);
@@ -31,7 +32,13 @@ public class keyDoor {
         return locked;
     }
 
+    void setEvents(GameEvents events) {
+        this.events = events;
+    }
+
     public void unlock() {
+        boolean wasLocked = locked;
         this.locked = false;
+        if (events != null && wasLocked) events.doorUnlocked(this);
     }
 }